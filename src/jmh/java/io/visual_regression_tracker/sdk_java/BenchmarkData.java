@@ -0,0 +1,67 @@
+package io.visual_regression_tracker.sdk_java;
+
+import io.visual_regression_tracker.sdk_java.request.TestRunRequest;
+import io.visual_regression_tracker.sdk_java.response.TestRunResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Deterministic inputs shared by the benchmarks, so results are comparable between runs.
+ */
+final class BenchmarkData {
+
+    private static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    static byte[] image(int size) {
+        byte[] image = new byte[size];
+        new Random(SEED).nextBytes(image);
+        return image;
+    }
+
+    static TestRunRequest.TestRunRequestBuilder testRunRequest() {
+        return TestRunRequest.builder()
+                .projectId("003f5fcf-6c5f-4f1f-a99f-82a697711382")
+                .buildId("0d14dd14-f9c6-43d6-a4f2-f2b0a1a30ed3")
+                .branchName("develop")
+                .name("Home page")
+                .os("Windows")
+                .browser("Chrome")
+                .viewport("1920x1080")
+                .device("Desktop")
+                .customTags("smoke")
+                .diffTollerancePercent(0.1f)
+                .ignoreAreas(Collections.singletonList(IgnoreAreas.builder().x(10L).y(20L).width(300L).height(40L).build()));
+    }
+
+    static TestRunResponse testRunResponse() {
+        return TestRunResponse.builder()
+                .id("6b6b3e44-3b3a-4d0a-a0f3-4c1b3ef1a1e6")
+                .imageName("1592411474186.screenshot.png")
+                .diffName("1592411474215.diff.png")
+                .baselineName("1592411474174.baseline.png")
+                .diffPercent(0.32f)
+                .diffTollerancePercent(0.1f)
+                .pixelMisMatchCount(6632)
+                .merge(false)
+                .url("http://localhost:8080/003f5fcf-6c5f-4f1f-a99f-82a697711382?buildId=0d14dd14&testId=6b6b3e44")
+                .status(TestRunStatus.UNRESOLVED)
+                .build();
+    }
+
+    static long drain(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (InputStream stream = inputStream) {
+            for (int read; (read = stream.read(buffer)) != -1; ) {
+                total += read;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,67 @@
+package io.visual_regression_tracker.sdk_java;
+
+import com.google.gson.Gson;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import io.visual_regression_tracker.sdk_java.request.TestRunRequestBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the test run request body: reflective Gson with the image inlined versus the streamed body,
+ * and base64 encoding on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RequestSerializationBenchmark {
+
+    @Param({"16384", "262144", "4194304"})
+    private int imageSize;
+
+    private final Gson gson = new Gson();
+    private byte[] image;
+    private String imageBase64;
+
+    @Setup
+    public void setup() {
+        image = BenchmarkData.image(imageSize);
+        imageBase64 = Base64.getEncoder().encodeToString(image);
+    }
+
+    @Benchmark
+    public String gsonTestRunRequest() {
+        return gson.toJson(BenchmarkData.testRunRequest().imageBase64(imageBase64).build());
+    }
+
+    @Benchmark
+    public long streamedTestRunRequestBody() throws IOException {
+        return BenchmarkData.drain(TestRunRequestBody.create(gson, BenchmarkData.testRunRequest(), ImageSource.ofBytes(image))
+                .openStream());
+    }
+
+    @Benchmark
+    public String base64EncodeToString() {
+        return Base64.getEncoder().encodeToString(image);
+    }
+
+    @Benchmark
+    public long base64EncodeStream() throws IOException {
+        return BenchmarkData.drain(ImageSource.ofBytes(image).openBase64Stream());
+    }
+}
@@ -0,0 +1,133 @@
+package io.visual_regression_tracker.sdk_java;
+
+import com.google.gson.Gson;
+import io.visual_regression_tracker.sdk_java.http.ResponseBody;
+import io.visual_regression_tracker.sdk_java.json.VrtTypeAdapterFactory;
+import io.visual_regression_tracker.sdk_java.response.TestRunResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the test run response and turning it into a {@link TestRunResult}.
+ * Reflective Gson is the baseline for the hand-written adapters used by {@code parseResponse}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResponseBenchmark {
+
+    private final Gson reflectiveGson = new Gson();
+    private final Gson gson = VrtTypeAdapterFactory.createGson();
+    private final PathProvider paths = new PathProvider("http://localhost:4200");
+    private String responseBody;
+    private HttpResponse<ResponseBody> httpResponse;
+    private TestRunResponse testRunResponse;
+    private VisualRegressionTracker vrt;
+
+    @Setup
+    public void setup() {
+        testRunResponse = BenchmarkData.testRunResponse();
+        responseBody = gson.toJson(testRunResponse);
+        httpResponse = new BufferedResponse(ResponseBody.of(responseBody));
+        vrt = new VisualRegressionTracker(VisualRegressionTrackerConfig.builder()
+                .apiUrl("http://localhost:4200")
+                .apiKey("KEY")
+                .project("PROJECT")
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        vrt.close();
+    }
+
+    @Benchmark
+    public TestRunResponse reflectiveGsonTestRunResponse() {
+        return reflectiveGson.fromJson(responseBody, TestRunResponse.class);
+    }
+
+    @Benchmark
+    public TestRunResponse adapterGsonTestRunResponse() {
+        return gson.fromJson(responseBody, TestRunResponse.class);
+    }
+
+    @Benchmark
+    public TestRunResponse parseResponse() {
+        return vrt.parseResponse(httpResponse, TestRunResponse.class);
+    }
+
+    @Benchmark
+    public TestRunResult testRunResult() {
+        return new TestRunResult(testRunResponse, paths);
+    }
+
+    private static class BufferedResponse implements HttpResponse<ResponseBody> {
+        private final ResponseBody body;
+
+        BufferedResponse(ResponseBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return 201;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return null;
+        }
+
+        @Override
+        public Optional<HttpResponse<ResponseBody>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return HttpHeaders.of(Collections.emptyMap(), (name, value) -> true);
+        }
+
+        @Override
+        public ResponseBody body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return URI.create("http://localhost:4200/test-runs");
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io.visual_regression_tracker.sdk_java;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.visual_regression_tracker.sdk_java.response.BuildResponse;
+import io.visual_regression_tracker.sdk_java.response.TestRunResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process VRT API answering every build and test run request immediately, so benchmarks measure the client only.
+ */
+class StubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(16);
+    private final byte[] buildResponse;
+    private final byte[] testRunResponse;
+
+    StubServer() throws IOException {
+        Gson gson = new Gson();
+        buildResponse = gson.toJson(BuildResponse.builder()
+                .id("0d14dd14-f9c6-43d6-a4f2-f2b0a1a30ed3")
+                .projectId("003f5fcf-6c5f-4f1f-a99f-82a697711382")
+                .build()).getBytes(StandardCharsets.UTF_8);
+        testRunResponse = gson.toJson(TestRunResponse.builder()
+                .imageName("1592411474186.screenshot.png")
+                .status(TestRunStatus.OK)
+                .build()).getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String getApiUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            BenchmarkData.drain(requestBody);
+        }
+        byte[] response = exchange.getRequestURI().getPath().startsWith("/builds") ? buildResponse : testRunResponse;
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(response);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+}
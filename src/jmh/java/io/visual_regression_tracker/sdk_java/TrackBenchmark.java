@@ -0,0 +1,79 @@
+package io.visual_regression_tracker.sdk_java;
+
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * End-to-end {@code track} against {@link StubServer}: request encoding, HTTP exchange and response handling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// without TCP_NODELAY the stub server stalls every response on delayed ACKs
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TrackBenchmark {
+
+    private static final int SCREENSHOTS_PER_BATCH = 16;
+
+    @Param({"16384", "262144"})
+    private int imageSize;
+
+    private StubServer server;
+    private VisualRegressionTracker vrt;
+    private byte[] image;
+    private List<Screenshot> screenshots;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        server = new StubServer();
+        vrt = new VisualRegressionTracker(VisualRegressionTrackerConfig.builder()
+                .apiUrl(server.getApiUrl())
+                .apiKey("KEY")
+                .project("PROJECT")
+                .build());
+        vrt.start();
+        image = BenchmarkData.image(imageSize);
+        screenshots = IntStream.range(0, SCREENSHOTS_PER_BATCH)
+                .mapToObj(index -> Screenshot.builder()
+                        .name("Screenshot " + index)
+                        .image(ImageSource.ofBytes(image))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        vrt.stop();
+        vrt.close();
+        server.close();
+    }
+
+    @Benchmark
+    public TestRunResult track() throws IOException, InterruptedException {
+        return vrt.track("Home page", image);
+    }
+
+    @Benchmark
+    public List<TestRunResult> trackAll() throws IOException, InterruptedException {
+        return vrt.trackAll(screenshots);
+    }
+}
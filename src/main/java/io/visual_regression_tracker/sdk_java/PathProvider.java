@@ -2,11 +2,15 @@ package io.visual_regression_tracker.sdk_java;
 
 import lombok.AllArgsConstructor;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
 @AllArgsConstructor
 public class PathProvider {
 
     private static final String BUILD_PATH = "/builds";
     private static final String TEST_RUNS_PATH = "/test-runs";
+    private static final String MULTIPART_PATH = "/multipart";
 
     private final String baseApiUrl;
 
@@ -22,6 +26,14 @@ public class PathProvider {
         return baseApiUrl.concat(TEST_RUNS_PATH);
     }
 
+    public String getTestRunsPathForBuild(String buildId) {
+        return getTestRunPath().concat("?buildId=").concat(URLEncoder.encode(buildId, StandardCharsets.UTF_8));
+    }
+
+    public String getTestRunMultipartPath() {
+        return getTestRunPath().concat(MULTIPART_PATH);
+    }
+
     public String getImageUrl(String name) {
         if(name == null || name.isEmpty()){
             return null;
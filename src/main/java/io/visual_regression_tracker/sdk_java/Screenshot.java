@@ -0,0 +1,14 @@
+package io.visual_regression_tracker.sdk_java;
+
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class Screenshot {
+    private final String name;
+    private final ImageSource image;
+    @Builder.Default
+    private final TestRunOptions testRunOptions = TestRunOptions.builder().build();
+}
@@ -0,0 +1,29 @@
+package io.visual_regression_tracker.sdk_java;
+
+/**
+ * Default {@link TestRunOptions} of the current thread, used by {@code track} and {@code trackAsync}
+ * calls without options. Lets parallel tests running on different browsers or devices share one tracker.
+ */
+public final class TestRunContext {
+
+    private static final ThreadLocal<TestRunOptions> OPTIONS = new ThreadLocal<>();
+
+    private TestRunContext() {
+    }
+
+    public static void setDefaultOptions(TestRunOptions testRunOptions) {
+        OPTIONS.set(testRunOptions);
+    }
+
+    public static void clear() {
+        OPTIONS.remove();
+    }
+
+    /**
+     * @return options set for the current thread, or empty options
+     */
+    public static TestRunOptions getDefaultOptions() {
+        TestRunOptions testRunOptions = OPTIONS.get();
+        return testRunOptions == null ? TestRunOptions.builder().build() : testRunOptions;
+    }
+}
@@ -0,0 +1,33 @@
+package io.visual_regression_tracker.sdk_java;
+
+import io.visual_regression_tracker.sdk_java.response.BuildResponse;
+import lombok.Getter;
+
+/**
+ * Build a tracker reports to. It never changes once created, so threads can share it without synchronization.
+ */
+@Getter
+class TrackerSession {
+
+    private final String buildId;
+    private final String projectId;
+    private final BuildResponse buildResponse;
+
+    TrackerSession(String buildId, String projectId) {
+        this(buildId, projectId, BuildResponse.builder().id(buildId).projectId(projectId).build());
+    }
+
+    TrackerSession(BuildResponse buildResponse) {
+        this(buildResponse.getId(), buildResponse.getProjectId(), buildResponse);
+    }
+
+    private TrackerSession(String buildId, String projectId, BuildResponse buildResponse) {
+        this.buildId = buildId;
+        this.projectId = projectId;
+        this.buildResponse = buildResponse;
+    }
+
+    boolean isStarted() {
+        return buildId != null && projectId != null;
+    }
+}
@@ -1,19 +1,73 @@
 package io.visual_regression_tracker.sdk_java;
 
 import com.google.gson.Gson;
+import io.visual_regression_tracker.sdk_java.cache.ImageCache;
+import io.visual_regression_tracker.sdk_java.cache.TestRunDedupIndex;
+import io.visual_regression_tracker.sdk_java.compare.ComparisonResult;
+import io.visual_regression_tracker.sdk_java.compare.LocalCheckMode;
+import io.visual_regression_tracker.sdk_java.compare.PixelComparator;
+import io.visual_regression_tracker.sdk_java.concurrent.ExecutorFactory;
+import io.visual_regression_tracker.sdk_java.concurrent.NamedThreadFactory;
+import io.visual_regression_tracker.sdk_java.http.AdaptiveTimeout;
+import io.visual_regression_tracker.sdk_java.http.CircuitBreaker;
+import io.visual_regression_tracker.sdk_java.http.ConcurrencyLimiter;
+import io.visual_regression_tracker.sdk_java.http.HttpTransport;
+import io.visual_regression_tracker.sdk_java.http.JdkHttpTransport;
+import io.visual_regression_tracker.sdk_java.http.RequestBody;
+import io.visual_regression_tracker.sdk_java.http.ResponseBody;
+import io.visual_regression_tracker.sdk_java.http.Retrier;
+import io.visual_regression_tracker.sdk_java.http.RetryPolicy;
+import io.visual_regression_tracker.sdk_java.image.ImageBudget;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import io.visual_regression_tracker.sdk_java.image.PngOptimizer;
+import io.visual_regression_tracker.sdk_java.jfr.BuildEvent;
+import io.visual_regression_tracker.sdk_java.jfr.SerializationEvent;
+import io.visual_regression_tracker.sdk_java.jfr.TrackEvent;
+import io.visual_regression_tracker.sdk_java.json.VrtTypeAdapterFactory;
+import io.visual_regression_tracker.sdk_java.metrics.HistogramMetricsListener;
+import io.visual_regression_tracker.sdk_java.metrics.MetricsListener;
+import io.visual_regression_tracker.sdk_java.metrics.MetricsListeners;
+import io.visual_regression_tracker.sdk_java.metrics.Phase;
 import io.visual_regression_tracker.sdk_java.request.BuildRequest;
+import io.visual_regression_tracker.sdk_java.request.TestRunMultipartBody;
 import io.visual_regression_tracker.sdk_java.request.TestRunRequest;
+import io.visual_regression_tracker.sdk_java.request.TestRunRequestBody;
 import io.visual_regression_tracker.sdk_java.response.BuildResponse;
 import io.visual_regression_tracker.sdk_java.response.TestRunResponse;
+import io.visual_regression_tracker.sdk_java.session.SharedBuildFile;
+import io.visual_regression_tracker.sdk_java.spool.SpooledTestRun;
+import io.visual_regression_tracker.sdk_java.spool.TestRunSpool;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
 
 enum METHOD {
     GET,
@@ -22,36 +76,211 @@ enum METHOD {
 }
 
 @Slf4j
-public class VisualRegressionTracker {
+public class VisualRegressionTracker implements AutoCloseable {
 
     private static final String TRACKER_NOT_STARTED = "Visual Regression Tracker has not been started";
     private static final String CONFIG_FILE_NAME = "vrt.json";
+    // base64 text gains little beyond the fastest level
+    private static final int COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+    private static final Duration WARM_UP_TIMEOUT = Duration.ofSeconds(2);
+    private static final Set<TestRunStatus> ACCEPTED_STATUSES =
+            EnumSet.of(TestRunStatus.OK, TestRunStatus.APPROVED, TestRunStatus.AUTO_APPROVED);
     protected static final String API_KEY_HEADER = "apiKey";
     protected static final String PROJECT_HEADER = "project";
     protected Gson gson;
     protected VisualRegressionTrackerConfig configuration;
     protected PathProvider paths;
-    protected String buildId;
-    protected String projectId;
+    protected HttpTransport transport;
+    protected ExecutorService asyncExecutor;
+    protected Semaphore asyncPermits;
+    protected ImageBudget imageBudget;
+    protected Set<CompletableFuture<?>> pendingSubmissions;
+    protected volatile boolean multipartUpload;
+    protected volatile boolean compression;
+    protected boolean imageOptimization;
+    protected boolean deferredResults;
+    protected TestRunDedupIndex dedupIndex;
+    protected LocalCheckMode localCheckMode;
+    protected ImageCache imageCache;
+    protected SharedBuildFile sharedBuild;
+    protected TestRunSpool spool;
+    protected Thread spoolDrainer;
+    protected Retrier retrier;
+    protected ConcurrencyLimiter concurrencyLimiter;
+    protected AdaptiveTimeout adaptiveTimeout;
+    protected MetricsListeners metrics;
+    protected RetryPolicy startRetryPolicy;
+    protected RetryPolicy trackRetryPolicy;
+    protected RetryPolicy stopRetryPolicy;
+    protected RetryPolicy imageRetryPolicy;
+    protected volatile TrackerSession session;
+    protected volatile CompletableFuture<Void> warmUp = CompletableFuture.completedFuture(null);
+    private final Object lifecycleLock = new Object();
+    private BuildResponse stopResponse;
+    private final List<String> deferredErrors = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong spoolFailures = new AtomicLong();
 
     public VisualRegressionTracker() {
+        this(readDefaultConfiguration());
+    }
+
+    public VisualRegressionTracker(VisualRegressionTrackerConfig trackerConfig) {
+        this(trackerConfig, new JdkHttpTransport(trackerConfig));
+    }
+
+    public VisualRegressionTracker(VisualRegressionTrackerConfig trackerConfig, HttpTransport httpTransport) {
+        if (trackerConfig.getSharedBuildFile() != null
+                && (trackerConfig.getCiBuildId() == null || trackerConfig.getCiBuildId().isEmpty())) {
+            // otherwise a later run would report into a build left running by an earlier one
+            throw new IllegalArgumentException("sharedBuildFile requires ciBuildId to tell the CI runs apart");
+        }
+        configuration = trackerConfig;
+        paths = new PathProvider(trackerConfig.getApiUrl());
+        gson = VrtTypeAdapterFactory.createGson();
+        transport = httpTransport;
+        asyncExecutor = ExecutorFactory.newExecutor(trackerConfig.getThreadMode(), "vrt-async", trackerConfig.getAsyncThreads());
+        asyncPermits = new Semaphore(trackerConfig.getMaxAsyncInFlight());
+        imageBudget = new ImageBudget(trackerConfig.getImageBudgetInBytes(), trackerConfig.getRejectOverImageBudget());
+        pendingSubmissions = ConcurrentHashMap.newKeySet();
+        multipartUpload = trackerConfig.getEnableMultipartUpload();
+        compression = trackerConfig.getEnableCompression();
+        imageOptimization = trackerConfig.getEnableImageOptimization();
+        deferredResults = trackerConfig.getEnableDeferredResults();
+        if (trackerConfig.getDedupIndexFile() != null) {
+            dedupIndex = new TestRunDedupIndex(Paths.get(trackerConfig.getDedupIndexFile()),
+                    trackerConfig.getDedupIndexMaxEntries(), Duration.ofDays(trackerConfig.getDedupIndexMaxAgeInDays()));
+        }
+        if (trackerConfig.getSharedBuildFile() != null) {
+            sharedBuild = new SharedBuildFile(Paths.get(trackerConfig.getSharedBuildFile()), trackerConfig.getShardCount());
+        }
+        retrier = new Retrier(new CircuitBreaker(trackerConfig.getCircuitBreakerFailureThreshold(),
+                Duration.ofSeconds(trackerConfig.getCircuitBreakerOpenInSeconds())));
+        metrics = new MetricsListeners();
+        if (trackerConfig.getEnableMetricsSummary()) {
+            metrics.add(new HistogramMetricsListener());
+        }
+        concurrencyLimiter = trackerConfig.getEnableAdaptiveConcurrency()
+                ? ConcurrencyLimiter.adaptive(trackerConfig.getMaxConnections() / 2, trackerConfig.getMaxConnections())
+                : ConcurrencyLimiter.fixed(trackerConfig.getMaxConnections());
+        if (trackerConfig.getEnableAdaptiveTimeouts()) {
+            adaptiveTimeout = new AdaptiveTimeout(Duration.ofSeconds(trackerConfig.getHttpTimeoutInSeconds()),
+                    Duration.ofMillis(trackerConfig.getMinWriteTimeoutInMillis()),
+                    Duration.ofMillis(trackerConfig.getMinResponseTimeoutInMillis()));
+        }
+        // the server reuses the build with the same ciBuildId, so only then creating a build is idempotent
+        startRetryPolicy = retryPolicy(trackerConfig.getStartMaxAttempts(), trackerConfig.getCiBuildId() != null);
+        // a repeated test run would show up twice in the build
+        trackRetryPolicy = retryPolicy(trackerConfig.getTrackMaxAttempts(), false);
+        stopRetryPolicy = retryPolicy(trackerConfig.getStopMaxAttempts(), true);
+        imageRetryPolicy = retryPolicy(trackerConfig.getTrackMaxAttempts(), true);
+        imageCache = new ImageCache(Paths.get(trackerConfig.getImageCacheDirectory()), trackerConfig.getImageCacheMaxSizeInBytes());
+        localCheckMode = trackerConfig.getLocalCheckMode();
+        if (localCheckMode != LocalCheckMode.OFF && dedupIndex == null) {
+            // baselines are known from the test runs accepted before
+            log.warn("Local check needs dedupIndexFile to be configured, it is disabled");
+            localCheckMode = LocalCheckMode.OFF;
+        }
+        if (trackerConfig.getSpoolDirectory() != null) {
+            spool = new TestRunSpool(Paths.get(trackerConfig.getSpoolDirectory()), trackerConfig.getSpoolSegmentSizeInBytes());
+            spoolDrainer = new NamedThreadFactory("vrt-spool").newThread(this::drainSpool);
+            spoolDrainer.start();
+        }
+    }
+
+    private RetryPolicy retryPolicy(int maxAttempts, boolean idempotent) {
+        return new RetryPolicy(maxAttempts, Duration.ofMillis(configuration.getRetryBackoffInMillis()),
+                Duration.ofMillis(configuration.getRetryMaxBackoffInMillis()), idempotent);
+    }
+
+    private static VisualRegressionTrackerConfig readDefaultConfiguration() {
         VisualRegressionTrackerConfig.VisualRegressionTrackerConfigBuilder configBuilder = VisualRegressionTrackerConfig.builder();
         File configFile = new File(CONFIG_FILE_NAME);
         if (configFile.exists()) {
             configBuilder.configFile(configFile);
         }
-        configuration = configBuilder.build();
-        paths = new PathProvider(configuration.getApiUrl());
-        gson = new Gson();
+        return configBuilder.build();
     }
 
-    public VisualRegressionTracker(VisualRegressionTrackerConfig trackerConfig) {
-        configuration = trackerConfig;
-        paths = new PathProvider(trackerConfig.getApiUrl());
-        gson = new Gson();
+    /**
+     * Starts a build shared by all threads using this tracker.
+     * Calls made while the build is running wait for it to be started and return the same build.
+     */
+    public BuildResponse start() throws IOException, InterruptedException {
+        synchronized (lifecycleLock) {
+            TrackerSession current = session;
+            if (current != null && current.isStarted()) {
+                return current.getBuildResponse();
+            }
+            long startTime = System.nanoTime();
+            BuildEvent event = new BuildEvent();
+            event.begin();
+            BuildResponse buildResponse = null;
+            try {
+                buildResponse = startBuild();
+                return buildResponse;
+            } finally {
+                metrics.onPhase(Phase.START, Duration.ofNanos(System.nanoTime() - startTime));
+                commitBuildEvent(event, BuildEvent.START, buildResponse == null ? null : buildResponse.getId());
+            }
+        }
     }
 
-    public BuildResponse start() throws IOException, InterruptedException {
+    private BuildResponse startBuild() throws IOException, InterruptedException {
+        warmUp = startWarmUp();
+        BuildResponse buildResponse = sharedBuild == null
+                ? createBuild()
+                : sharedBuild.attach(configuration.getCiBuildId(), this::createBuild);
+
+        stopResponse = null;
+        session = new TrackerSession(buildResponse);
+
+        log.info("Visual Regression Tracker is started for project <{}>: projectId: <{}>, buildId: <{}>, ciBuildId: <{}>",
+                configuration.getProject(), buildResponse.getProjectId(), buildResponse.getId(), buildResponse.getCiBuildId());
+        return buildResponse;
+    }
+
+    /**
+     * Sends {@code warmUpConnections} concurrent GET requests to the server and initializes the JSON adapters
+     * of test runs in the background, so the first test run doesn't pay for DNS lookup, handshakes and class loading.
+     * Over HTTP/1.1 each request opens a connection, over HTTP/2 they share one. The requests pass the concurrency
+     * limiter and time out after at most {@link #WARM_UP_TIMEOUT}. They are neither retried nor reported to the
+     * circuit breaker, and failures are only logged.
+     */
+    private CompletableFuture<Void> startWarmUp() {
+        int connections = Math.min(configuration.getWarmUpConnections(), configuration.getMaxConnections());
+        if (connections <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long startTime = System.nanoTime();
+        RequestBody body = RequestBody.ofJson("");
+        Duration httpTimeout = Duration.ofSeconds(configuration.getHttpTimeoutInSeconds());
+        HttpRequest request = getRequest(METHOD.GET, body.toBodyPublisher(), httpRequestBuilder(configuration.getApiUrl(), body)
+                .timeout(WARM_UP_TIMEOUT.compareTo(httpTimeout) < 0 ? WARM_UP_TIMEOUT : httpTimeout));
+        List<CompletableFuture<?>> tasks = new ArrayList<>();
+        tasks.add(CompletableFuture.runAsync(this::initializeJsonAdapters, asyncExecutor));
+        for (int i = 0; i < connections; i++) {
+            tasks.add(concurrencyLimiter.executeAsync(0,
+                    () -> transport.sendAsync(request, HttpResponse.BodyHandlers.discarding())));
+        }
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+                .handle((result, throwable) -> {
+                    Duration duration = Duration.ofNanos(System.nanoTime() - startTime);
+                    if (throwable != null) {
+                        log.warn("Warm-up failed after <{}> ms: {}", duration.toMillis(), throwable.toString());
+                    } else {
+                        log.info("Warm-up of <{}> connections took <{}> ms", connections, duration.toMillis());
+                    }
+                    metrics.onPhase(Phase.WARM_UP, duration);
+                    return null;
+                });
+    }
+
+    private void initializeJsonAdapters() {
+        gson.getAdapter(TestRunRequest.class);
+        gson.fromJson("{\"status\":\"ok\"}", TestRunResponse.class);
+    }
+
+    private BuildResponse createBuild() throws IOException, InterruptedException {
         String projectName = configuration.getProject();
         String branch = configuration.getBranchName();
         String ciBuildId = configuration.getCiBuildId();
@@ -62,68 +291,364 @@ public class VisualRegressionTracker {
                 .ciBuildId(ciBuildId)
                 .build();
         log.info("Starting Visual Regression Tracker for project <{}> and branch <{}>", projectName, branch);
-        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(gson.toJson(newBuild));
-        HttpResponse<String> response = getResponse(METHOD.POST, paths.getBuildPath(), body);
-        BuildResponse buildResponse = handleResponse(response, BuildResponse.class);
+        RequestBody body = RequestBody.ofJson(gson.toJson(newBuild));
+        HttpResponse<ResponseBody> response = getResponse(METHOD.POST, paths.getBuildPath(), body, startRetryPolicy);
+        return parseResponse(response, BuildResponse.class);
+    }
 
-        buildId = buildResponse.getId();
-        projectId = buildResponse.getProjectId();
+    /**
+     * Stops the build once all pending test runs are completed. Test runs submitted from then on are rejected.
+     * Further calls return the same result until the tracker is started again.
+     * With a spool, its test runs are uploaded first. With a spool or deferred results, new and unresolved
+     * test runs are reported afterwards with {@link TestRunException}, unless soft assert is enabled.
+     */
+    public BuildResponse stop() throws IOException, InterruptedException {
+        synchronized (lifecycleLock) {
+            if (stopResponse != null) {
+                return stopResponse;
+            }
+            TrackerSession current = session;
+            if (current == null || !current.isStarted()) {
+                throw new TestRunException(TRACKER_NOT_STARTED);
+            }
+            String buildId = current.getBuildId();
 
-        log.info("Visual Regression Tracker is started for project <{}>: projectId: <{}>, buildId: <{}>, ciBuildId: <{}>",
-                projectName, projectId, buildId, buildResponse.getCiBuildId());
-        return buildResponse;
+            long startTime = System.nanoTime();
+            BuildEvent event = new BuildEvent();
+            event.begin();
+            BuildResponse vrtStopResponse = null;
+            session = null;
+            try {
+                awaitPendingSubmissions();
+                flushSpool();
+                if (sharedBuild == null || sharedBuild.finish(buildId)) {
+                    BuildResponse buildResponse = stopBuild(buildId);
+                    if (deferredResults) {
+                        reconcileTestRuns(buildId, buildResponse);
+                    }
+                    vrtStopResponse = buildResponse;
+                } else {
+                    log.info("Build <{}> is left running for the other shards", buildId);
+                    vrtStopResponse = current.getBuildResponse();
+                }
+
+                saveDedupIndex();
+            } finally {
+                if (vrtStopResponse == null) {
+                    // keep the build usable, so stop can be retried
+                    session = current;
+                }
+                metrics.onPhase(Phase.STOP, Duration.ofNanos(System.nanoTime() - startTime));
+                commitBuildEvent(event, BuildEvent.STOP, buildId);
+            }
+            log.info("Visual Regression Tracker is stopped for buildId <{}>", buildId);
+            metrics.onStop(buildId);
+            stopResponse = vrtStopResponse;
+            reportDeferredErrors();
+            return vrtStopResponse;
+        }
     }
 
-    public BuildResponse stop() throws IOException, InterruptedException {
-        if (!isStarted()) {
-            throw new TestRunException(TRACKER_NOT_STARTED);
+    private void commitBuildEvent(BuildEvent event, String operation, String buildId) {
+        if (event.shouldCommit()) {
+            event.setOperation(operation);
+            event.setBuildId(buildId);
+            event.setCiBuildId(configuration.getCiBuildId());
+            event.commit();
         }
+    }
 
+    private BuildResponse stopBuild(String buildId) throws IOException, InterruptedException {
         log.info("Stopping Visual Regression Tracker for buildId <{}>", buildId);
 
-        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString("");
-        HttpResponse<String> response = getResponse(METHOD.PATCH, paths.getBuildPathForBuild(buildId), body);
-        BuildResponse vrtStopResponse = handleResponse(response, BuildResponse.class);
+        RequestBody body = RequestBody.ofJson("");
+        HttpResponse<ResponseBody> response = getResponse(METHOD.PATCH, paths.getBuildPathForBuild(buildId), body, stopRetryPolicy);
+        return parseResponse(response, BuildResponse.class);
+    }
+
+    /**
+     * Collects new and unresolved test runs of the stopped build. Their number is known from the build,
+     * so its test runs are only fetched if there are any.
+     */
+    private void reconcileTestRuns(String buildId, BuildResponse buildResponse) throws IOException, InterruptedException {
+        log.info("Build <{}> has <{}> passed, <{}> unresolved and <{}> failed test runs", buildId,
+                buildResponse.getPassedCount(), buildResponse.getUnresolvedCount(), buildResponse.getFailedCount());
+        if (buildResponse.getUnresolvedCount() == 0) {
+            return;
+        }
+        RequestBody body = RequestBody.ofJson("");
+        HttpResponse<ResponseBody> response = getResponse(METHOD.GET, paths.getTestRunsPathForBuild(buildId), body, stopRetryPolicy);
+        for (TestRunResponse testRun : parseResponse(response, TestRunResponse[].class)) {
+            String errorMessage = errorMessage(testRun);
+            if (!errorMessage.isEmpty()) {
+                deferredErrors.add(errorMessage);
+            }
+        }
+    }
 
-        log.info("Visual Regression Tracker is stopped for buildId <{}>", buildId);
-        return vrtStopResponse;
+    /**
+     * Uploads test runs left in {@code spoolDirectory} by a tracker that was not stopped, e.g. after a crash.
+     * Each test run goes to the build it was tracked for.
+     *
+     * @param stopBuilds whether to stop the builds of the replayed test runs afterwards
+     */
+    public List<TestRunResult> replaySpool(Path spoolDirectory, boolean stopBuilds) throws IOException, InterruptedException {
+        List<TestRunResult> results = new ArrayList<>();
+        Set<String> buildIds = new LinkedHashSet<>();
+        TestRunSpool.replay(spoolDirectory, record -> {
+            TestRunResponse testRunResponse = uploadSpooledTestRun(record);
+            if (testRunResponse != null) {
+                results.add(new TestRunResult(testRunResponse, paths));
+            }
+            buildIds.add(record.getRun().getRequest().getBuildId());
+        });
+        deferredErrors.forEach(log::error);
+        deferredErrors.clear();
+        if (stopBuilds) {
+            for (String buildId : buildIds) {
+                stopBuild(buildId);
+            }
+        }
+        saveDedupIndex();
+        return results;
     }
 
     public TestRunResult track(String name, String imageBase64, TestRunOptions testRunOptions)
             throws IOException, InterruptedException {
-        log.info("Tracking test run <{}> with options <{}> for buildId <{}>", name, testRunOptions, buildId);
+        log.info("Tracking test run <{}> with options <{}> for buildId <{}>", name, testRunOptions, currentBuildId());
         TestRunResponse testResultDTO = submitTestRun(name, imageBase64, testRunOptions);
+        return toTestRunResult(testResultDTO);
+    }
 
-        String errorMessage;
-        switch (testResultDTO.getStatus()) {
-            case NEW:
-                errorMessage = "No baseline: ".concat(testResultDTO.getUrl());
-                break;
-            case UNRESOLVED:
-                errorMessage = "Difference found: ".concat(testResultDTO.getUrl());
-                break;
-            default:
-                errorMessage = "";
-                break;
+    public TestRunResult track(String name, String imageBase64) throws IOException, InterruptedException {
+        return track(name, imageBase64, TestRunContext.getDefaultOptions());
+    }
+
+    public TestRunResult track(String name, byte[] image, TestRunOptions testRunOptions)
+            throws IOException, InterruptedException {
+        return track(name, ImageSource.ofBytes(image), testRunOptions);
+    }
+
+    public TestRunResult track(String name, byte[] image) throws IOException, InterruptedException {
+        return track(name, image, TestRunContext.getDefaultOptions());
+    }
+
+    public TestRunResult track(String name, Path image, TestRunOptions testRunOptions)
+            throws IOException, InterruptedException {
+        return track(name, ImageSource.ofPath(image), testRunOptions);
+    }
+
+    public TestRunResult track(String name, Path image) throws IOException, InterruptedException {
+        return track(name, image, TestRunContext.getDefaultOptions());
+    }
+
+    public TestRunResult track(String name, InputStream image, TestRunOptions testRunOptions)
+            throws IOException, InterruptedException {
+        return track(name, ImageSource.ofStream(image), testRunOptions);
+    }
+
+    public TestRunResult track(String name, InputStream image) throws IOException, InterruptedException {
+        return track(name, image, TestRunContext.getDefaultOptions());
+    }
+
+    public TestRunResult track(String name, ImageSource image, TestRunOptions testRunOptions)
+            throws IOException, InterruptedException {
+        log.info("Tracking test run <{}> with options <{}> for buildId <{}>", name, testRunOptions, currentBuildId());
+        TestRunResponse testResultDTO = submitTestRun(name, image, testRunOptions);
+        return toTestRunResult(testResultDTO);
+    }
+
+    /**
+     * Submits a test run without blocking on the comparison result.
+     * Waits only while {@code maxAsyncInFlight} submissions are already outstanding.
+     * The returned future completes exceptionally with {@link TestRunException} for new or unresolved
+     * test runs, unless soft assert is enabled. {@link #stop()} waits for all outstanding submissions.
+     */
+    public CompletableFuture<TestRunResult> trackAsync(String name, String imageBase64, TestRunOptions testRunOptions) {
+        return trackAsync(name, ImageSource.ofBase64(imageBase64), testRunOptions);
+    }
+
+    public CompletableFuture<TestRunResult> trackAsync(String name, String imageBase64) {
+        return trackAsync(name, imageBase64, TestRunContext.getDefaultOptions());
+    }
+
+    public CompletableFuture<TestRunResult> trackAsync(String name, ImageSource image, TestRunOptions testRunOptions) {
+        if (!isStarted()) {
+            throw new TestRunException(TRACKER_NOT_STARTED);
+        }
+        log.info("Tracking test run <{}> asynchronously with options <{}> for buildId <{}>", name, testRunOptions, currentBuildId());
+        try {
+            asyncPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
         }
 
-        if (!errorMessage.isEmpty()) {
+        CompletableFuture<TestRunResult> result;
+        try {
+            result = submitTestRunAsync(name, image, testRunOptions)
+                    .thenApplyAsync(this::toTestRunResult, asyncExecutor);
+        } catch (RuntimeException e) {
+            asyncPermits.release();
+            throw e;
+        }
+        pendingSubmissions.add(result);
+        result.whenComplete((testRunResult, throwable) -> {
+            pendingSubmissions.remove(result);
+            asyncPermits.release();
+        });
+        return result;
+    }
+
+    /**
+     * Submits all screenshots, at most {@code trackAllParallelism} at a time, and waits for their results.
+     *
+     * @return results in the order of {@code screenshots}
+     * @throws TestRunException listing every new and unresolved test run, unless soft assert is enabled
+     */
+    public List<TestRunResult> trackAll(Collection<Screenshot> screenshots) throws IOException, InterruptedException {
+        return trackAll(screenshots, configuration.getTrackAllParallelism());
+    }
+
+    public List<TestRunResult> trackAll(Collection<Screenshot> screenshots, int parallelism)
+            throws IOException, InterruptedException {
+        if (!isStarted()) {
+            throw new TestRunException(TRACKER_NOT_STARTED);
+        }
+        log.info("Tracking <{}> test runs with parallelism <{}> for buildId <{}>", screenshots.size(), parallelism, currentBuildId());
+
+        Semaphore permits = new Semaphore(parallelism);
+        List<CompletableFuture<TestRunResponse>> submissions = new ArrayList<>(screenshots.size());
+        try {
+            for (Screenshot screenshot : screenshots) {
+                permits.acquire();
+                CompletableFuture<TestRunResponse> submission;
+                try {
+                    submission = submitTestRunAsync(screenshot.getName(), screenshot.getImage(), screenshot.getTestRunOptions());
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+                submissions.add(submission.whenComplete((testRunResponse, throwable) -> permits.release()));
+            }
+        } finally {
+            CompletableFuture.allOf(submissions.toArray(new CompletableFuture[0]))
+                    .exceptionally(throwable -> null)
+                    .join();
+        }
+
+        List<TestRunResult> results = new ArrayList<>(submissions.size());
+        List<String> errorMessages = new ArrayList<>();
+        for (CompletableFuture<TestRunResponse> submission : submissions) {
+            TestRunResponse testResultDTO = getSubmissionResult(submission);
+            String errorMessage = errorMessage(testResultDTO);
+            if (!errorMessage.isEmpty()) {
+                errorMessages.add(errorMessage);
+            }
+            results.add(new TestRunResult(testResultDTO, this.paths));
+        }
+
+        if (!errorMessages.isEmpty()) {
             if (configuration.getEnableSoftAssert()) {
-                log.error(errorMessage);
+                errorMessages.forEach(log::error);
             } else {
-                throw new TestRunException(errorMessage);
+                throw new TestRunException(String.join("\n", errorMessages));
             }
         }
+        return results;
+    }
 
-        return new TestRunResult(testResultDTO, this.paths);
+    /**
+     * Image of the server by name, e.g. {@link TestRunResponse#getBaselineName()}. Images are kept in
+     * {@code imageCacheDirectory}, so each one is downloaded once and afterwards only revalidated once per tracker.
+     * Parallel requests for the same image share one download.
+     *
+     * @return file of the cached image
+     */
+    public Path getImage(String imageName) throws IOException, InterruptedException {
+        return imageCache.get(imageName, this::fetchImage);
     }
 
-    public TestRunResult track(String name, String imageBase64) throws IOException, InterruptedException {
-        return track(name, imageBase64, TestRunOptions.builder().build());
+    /**
+     * Registers a listener for per-phase durations, traffic and test run statuses.
+     */
+    public void addMetricsListener(MetricsListener listener) {
+        metrics.add(listener);
+    }
+
+    public void removeMetricsListener(MetricsListener listener) {
+        metrics.remove(listener);
+    }
+
+    /**
+     * Current number of requests allowed in flight. With {@code enableAdaptiveConcurrency} it drops below
+     * {@code maxConnections} when the server signals overload, showing how close it is to saturation.
+     */
+    public int getConcurrencyLimit() {
+        return concurrencyLimiter.getLimit();
+    }
+
+    /**
+     * Bytes of images held by test runs queued or in flight, limited by {@code imageBudgetInBytes}.
+     */
+    public long getImageBudgetUsage() {
+        return imageBudget.getUsedBytes();
+    }
+
+    /**
+     * Highest {@link #getImageBudgetUsage()} so far, to size the heap and {@code imageBudgetInBytes}.
+     */
+    public long getImageBudgetPeakUsage() {
+        return imageBudget.getPeakBytes();
+    }
+
+    /**
+     * Releases pooled connections and transport threads. The tracker can't be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (spool != null) {
+            spoolDrainer.interrupt();
+            spool.close();
+        }
+        saveDedupIndex();
+        asyncExecutor.shutdown();
+        transport.close();
     }
 
     protected boolean isStarted() {
-        return buildId != null && projectId != null;
+        TrackerSession current = session;
+        return current != null && current.isStarted();
+    }
+
+    private String currentBuildId() {
+        TrackerSession current = session;
+        return current == null ? null : current.getBuildId();
+    }
+
+    /**
+     * Snapshot of the session, so a test run never mixes ids of different builds.
+     */
+    private TrackerSession requireSession() {
+        TrackerSession current = session;
+        if (current == null || !current.isStarted()) {
+            throw new TestRunException(TRACKER_NOT_STARTED);
+        }
+        return current;
+    }
+
+    /**
+     * Registered before the session is read, so {@link #stop()} either rejects the test run or waits for it.
+     */
+    private CompletableFuture<Void> registerPendingSubmission() {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        pendingSubmissions.add(pending);
+        return pending;
+    }
+
+    private void completePendingSubmission(CompletableFuture<Void> pending) {
+        pendingSubmissions.remove(pending);
+        pending.complete(null);
     }
 
     protected TestRunResponse submitTestRun(String name, String imageBase64,
@@ -132,44 +657,694 @@ public class VisualRegressionTracker {
             throw new TestRunException(TRACKER_NOT_STARTED);
         }
 
-        TestRunRequest newTestRun = TestRunRequest.builder()
-                .projectId(projectId)
-                .buildId(buildId)
+        return submitTestRun(name, ImageSource.ofBase64(imageBase64), testRunOptions);
+    }
+
+    protected TestRunResponse submitTestRun(String name, ImageSource image,
+                                            TestRunOptions testRunOptions) throws IOException, InterruptedException {
+        if (deferredResults) {
+            return deferTestRun(name, image, testRunOptions);
+        }
+        long imageBytes = image.length();
+        imageBudget.acquire(imageBytes);
+        CompletableFuture<Void> pending = registerPendingSubmission();
+        try {
+            TrackerSession current = requireSession();
+
+            long startTime = System.nanoTime();
+            TrackEvent event = new TrackEvent();
+            event.begin();
+            TestRunResponse testRunResponse = null;
+            try {
+                testRunResponse = dedupAndUploadTestRun(current, name, image, testRunOptions, event);
+                reportTestRun(name, testRunResponse);
+                return testRunResponse;
+            } finally {
+                metrics.onPhase(Phase.SUBMIT_TEST_RUN, Duration.ofNanos(System.nanoTime() - startTime));
+                commitTrackEvent(event, name, imageBytes, testRunResponse);
+            }
+        } finally {
+            completePendingSubmission(pending);
+            imageBudget.release(imageBytes);
+        }
+    }
+
+    /**
+     * Submits the test run in the background, waiting only while {@code maxAsyncInFlight} submissions are outstanding.
+     * The returned response has no status, outcomes of the whole build are fetched by {@link #stop()}.
+     * The image must not change until then.
+     */
+    private TestRunResponse deferTestRun(String name, ImageSource image,
+                                         TestRunOptions testRunOptions) throws InterruptedException {
+        asyncPermits.acquire();
+        CompletableFuture<TestRunResponse> submission;
+        try {
+            submission = submitTestRunAsync(name, image, testRunOptions);
+        } catch (RuntimeException e) {
+            asyncPermits.release();
+            throw e;
+        }
+        submission.whenComplete((testRunResponse, throwable) -> {
+            asyncPermits.release();
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                deferredErrors.add("Test run <" + name + "> could not be submitted: " + cause);
+            } else if (testRunResponse.getId() == null && !errorMessage(testRunResponse).isEmpty()) {
+                // found by the local check, so the server never sees it
+                deferredErrors.add(errorMessage(testRunResponse));
+            }
+        });
+        return TestRunResponse.builder().build();
+    }
+
+    private TestRunResponse dedupAndUploadTestRun(TrackerSession session, String name, ImageSource image,
+                                                  TestRunOptions testRunOptions,
+                                                  TrackEvent event) throws IOException, InterruptedException {
+        TestRunRequest.TestRunRequestBuilder request = testRunRequestBuilder(session, name, testRunOptions);
+        if (dedupIndex == null) {
+            return spool != null
+                    ? spoolTestRun(request, image, null, null)
+                    : uploadTestRun(request, optimizeImage(image), event);
+        }
+        String dedupKey = TestRunDedupIndex.key(name, testRunOptions, configuration.getBranchName());
+        String contentHash = TestRunDedupIndex.contentHash(image);
+        if (dedupIndex.contains(dedupKey, contentHash)) {
+            return unchangedTestRun(name);
+        }
+        TestRunResponse localResponse = checkLocally(name, dedupKey, image, testRunOptions);
+        if (localResponse != null) {
+            return localResponse;
+        }
+        if (spool != null) {
+            return spoolTestRun(request, image, dedupKey, contentHash);
+        }
+        return rememberAccepted(dedupKey, contentHash, uploadTestRun(request, optimizeImage(image), event));
+    }
+
+    /**
+     * Waits for the image budget in the calling thread, so callers are held back before images pile up.
+     */
+    protected CompletableFuture<TestRunResponse> submitTestRunAsync(String name, ImageSource image,
+                                                                    TestRunOptions testRunOptions) {
+        long imageBytes = image.length();
+        try {
+            imageBudget.acquire(imageBytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<Void> pending = registerPendingSubmission();
+        long startTime = System.nanoTime();
+        TrackEvent event = new TrackEvent();
+        event.begin();
+        CompletableFuture<TestRunResponse> submission;
+        try {
+            submission = dedupAndUploadTestRunAsync(requireSession(), name, image, testRunOptions, event);
+        } catch (RuntimeException e) {
+            metrics.onPhase(Phase.SUBMIT_TEST_RUN, Duration.ofNanos(System.nanoTime() - startTime));
+            commitTrackEvent(event, name, imageBytes, null);
+            completePendingSubmission(pending);
+            imageBudget.release(imageBytes);
+            throw e;
+        }
+        return submission.whenComplete((testRunResponse, throwable) -> {
+            if (testRunResponse != null) {
+                reportTestRun(name, testRunResponse);
+            }
+            metrics.onPhase(Phase.SUBMIT_TEST_RUN, Duration.ofNanos(System.nanoTime() - startTime));
+            commitTrackEvent(event, name, imageBytes, testRunResponse);
+            completePendingSubmission(pending);
+            imageBudget.release(imageBytes);
+        });
+    }
+
+    private CompletableFuture<TestRunResponse> dedupAndUploadTestRunAsync(TrackerSession session, String name, ImageSource image,
+                                                                          TestRunOptions testRunOptions,
+                                                                          TrackEvent event) {
+        TestRunRequest.TestRunRequestBuilder request = testRunRequestBuilder(session, name, testRunOptions);
+        if (dedupIndex == null) {
+            return spool != null
+                    ? spoolTestRunAsync(request, image, null, null)
+                    : optimizeImageAsync(image).thenCompose(optimizedImage -> uploadTestRunAsync(request, optimizedImage, event));
+        }
+        String dedupKey = TestRunDedupIndex.key(name, testRunOptions, configuration.getBranchName());
+        String contentHash = TestRunDedupIndex.contentHash(image);
+        if (dedupIndex.contains(dedupKey, contentHash)) {
+            return CompletableFuture.completedFuture(unchangedTestRun(name));
+        }
+        return checkLocallyAsync(name, dedupKey, image, testRunOptions).thenCompose(localResponse -> {
+            if (localResponse != null) {
+                return CompletableFuture.completedFuture(localResponse);
+            }
+            if (spool != null) {
+                return spoolTestRunAsync(request, image, dedupKey, contentHash);
+            }
+            return optimizeImageAsync(image)
+                    .thenCompose(optimizedImage -> uploadTestRunAsync(request, optimizedImage, event))
+                    .thenApply(testRunResponse -> rememberAccepted(dedupKey, contentHash, testRunResponse));
+        });
+    }
+
+    /**
+     * Compares the image with the baseline its test run was last accepted against, without asking the server.
+     *
+     * @return response for a test run that needs no upload, or {@code null} if it has to be uploaded
+     */
+    private TestRunResponse checkLocally(String name, String dedupKey, ImageSource image,
+                                         TestRunOptions testRunOptions) throws InterruptedException {
+        String baselineName = localCheckMode == LocalCheckMode.OFF ? null : dedupIndex.baselineName(dedupKey);
+        if (baselineName == null) {
+            return null;
+        }
+        ComparisonResult result;
+        try {
+            Path baseline = getImage(baselineName);
+            result = PixelComparator.compare(baseline, image, testRunOptions.getIgnoreAreas(),
+                    testRunOptions.getDiffTollerancePercent(), configuration.getLocalCheckThreshold());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can't compare test run <{}> with baseline <{}> locally, uploading it", name, baselineName, e);
+            return null;
+        }
+        if (result.getStatus() == TestRunStatus.OK) {
+            log.info("Image of test run <{}> matches baseline <{}> locally, upload is skipped", name, baselineName);
+        } else if (localCheckMode == LocalCheckMode.FAIL_FAST) {
+            log.info("Image of test run <{}> differs from baseline <{}> in <{}> pixels, upload is skipped",
+                    name, baselineName, result.getDiffPixels());
+        } else {
+            return null;
+        }
+        return TestRunResponse.builder()
+                .name(name)
+                .baselineName(baselineName)
+                .diffPercent(result.getDiffPercent())
+                .diffTollerancePercent(testRunOptions.getDiffTollerancePercent())
+                .pixelMisMatchCount((int) result.getDiffPixels())
+                .status(result.getStatus())
+                .build();
+    }
+
+    private CompletableFuture<TestRunResponse> checkLocallyAsync(String name, String dedupKey, ImageSource image,
+                                                                 TestRunOptions testRunOptions) {
+        if (localCheckMode == LocalCheckMode.OFF) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return checkLocally(name, dedupKey, image, testRunOptions);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, asyncExecutor);
+    }
+
+    /**
+     * Sends a conditional request if the image is cached already.
+     */
+    private ImageCache.Validators fetchImage(String imageName, ImageCache.Validators cached,
+                                             Path target) throws IOException, InterruptedException {
+        RequestBody body = RequestBody.ofJson("");
+        HttpRequest.Builder requestBuilder = httpRequestBuilder(paths.getImageUrl(imageName), body);
+        if (cached != null && cached.getEtag() != null) {
+            requestBuilder.header("If-None-Match", cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            requestBuilder.header("If-Modified-Since", cached.getLastModified());
+        }
+        HttpResponse<ResponseBody> response = exchange(METHOD.GET,
+                getRequest(METHOD.GET, body.toBodyPublisher(), requestBuilder), body, imageRetryPolicy);
+        if (response.statusCode() == 304 && cached != null) {
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Image <" + imageName + "> can't be downloaded, server answered with status <"
+                    + response.statusCode() + ">");
+        }
+        try (InputStream inputStream = response.body().openStream()) {
+            Files.copy(inputStream, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new ImageCache.Validators(response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null));
+    }
+
+    private TestRunResponse uploadTestRun(TestRunRequest.TestRunRequestBuilder request, ImageSource image,
+                                          TrackEvent event) throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        HttpResponse<ResponseBody> response = sendTestRun(request, image);
+        event.setServerTime(System.nanoTime() - startTime);
+        return parseResponse(response, TestRunResponse.class);
+    }
+
+    private HttpResponse<ResponseBody> sendTestRun(TestRunRequest.TestRunRequestBuilder request,
+                                                   ImageSource image) throws IOException, InterruptedException {
+        TestRunRequest testRun = request.build();
+        if (multipartUpload && TestRunMultipartBody.supports(testRun)) {
+            RequestBody multipartBody = TestRunMultipartBody.create(gson, testRun, image);
+            HttpResponse<ResponseBody> response = getResponse(METHOD.POST, paths.getTestRunMultipartPath(), multipartBody,
+                    trackRetryPolicy);
+            if (!isMultipartUnsupported(response)) {
+                return response;
+            }
+        }
+
+        RequestBody body = TestRunRequestBody.create(gson, request, image);
+        return getResponse(METHOD.POST, paths.getTestRunPath(), body, trackRetryPolicy);
+    }
+
+    private CompletableFuture<TestRunResponse> uploadTestRunAsync(TestRunRequest.TestRunRequestBuilder request,
+                                                                  ImageSource image, TrackEvent event) {
+        long startTime = System.nanoTime();
+        CompletableFuture<HttpResponse<ResponseBody>> response;
+        TestRunRequest testRun = request.build();
+        if (multipartUpload && TestRunMultipartBody.supports(testRun)) {
+            RequestBody multipartBody = TestRunMultipartBody.create(gson, testRun, image);
+            response = getResponseAsync(METHOD.POST, paths.getTestRunMultipartPath(), multipartBody, trackRetryPolicy)
+                    .thenCompose(multipartResponse -> isMultipartUnsupported(multipartResponse)
+                            ? getResponseAsync(METHOD.POST, paths.getTestRunPath(),
+                            TestRunRequestBody.create(gson, request, image), trackRetryPolicy)
+                            : CompletableFuture.completedFuture(multipartResponse));
+        } else {
+            RequestBody body = TestRunRequestBody.create(gson, request, image);
+            response = getResponseAsync(METHOD.POST, paths.getTestRunPath(), body, trackRetryPolicy);
+        }
+        return response.thenApplyAsync(httpResponse -> {
+            event.setServerTime(System.nanoTime() - startTime);
+            return parseResponse(httpResponse, TestRunResponse.class);
+        }, asyncExecutor);
+    }
+
+    private static void commitTrackEvent(TrackEvent event, String name, long imageBytes, TestRunResponse testRunResponse) {
+        if (event.shouldCommit()) {
+            event.setName(name);
+            event.setImageBytes(imageBytes);
+            if (testRunResponse != null) {
+                event.setStatus(testRunResponse.getStatus() == null ? null : testRunResponse.getStatus().name());
+                event.setDiffPercent(testRunResponse.getDiffPercent() == null ? 0 : testRunResponse.getDiffPercent());
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Appends the test run to the spool instead of uploading it. Its status is only known once the drainer
+     * uploaded it, so the returned response has none and differences are reported by {@link #stop()}.
+     */
+    private TestRunResponse spoolTestRun(TestRunRequest.TestRunRequestBuilder request, ImageSource image,
+                                         String dedupKey, String contentHash) throws IOException {
+        spool.append(new SpooledTestRun(request.build(), dedupKey, contentHash), image);
+        return TestRunResponse.builder().build();
+    }
+
+    private CompletableFuture<TestRunResponse> spoolTestRunAsync(TestRunRequest.TestRunRequestBuilder request, ImageSource image,
+                                                                 String dedupKey, String contentHash) {
+        try {
+            return CompletableFuture.completedFuture(spoolTestRun(request, image, dedupKey, contentHash));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Uploads spooled test runs in order. A test run failing with an I/O error, a 5xx or 429 response or an open
+     * circuit breaker stays at the head of the spool and is tried again after {@code retryMaxBackoffInMillis}.
+     * One rejected by the server otherwise, or failing in any other way, is dropped and reported by {@link #stop()}.
+     */
+    private void drainSpool() {
+        try {
+            TestRunSpool.Record record;
+            while ((record = spool.take()) != null) {
+                try {
+                    uploadSpooledTestRun(record);
+                } catch (IOException e) {
+                    spoolFailures.incrementAndGet();
+                    log.warn("Spooled test run <{}> could not be uploaded, retrying in {} ms: {}",
+                            record.getRun().getRequest().getName(), configuration.getRetryMaxBackoffInMillis(), e.toString());
+                    Thread.sleep(configuration.getRetryMaxBackoffInMillis());
+                    continue;
+                } catch (RuntimeException e) {
+                    // e.g. a response that is no test run, trying again would not help
+                    log.error("Spooled test run <{}> could not be uploaded", record.getRun().getRequest().getName(), e);
+                    deferredErrors.add("Spooled test run <" + record.getRun().getRequest().getName()
+                            + "> could not be uploaded: " + e);
+                }
+                spool.acknowledge(record);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return response of the server, or {@code null} if it rejected the test run
+     */
+    private TestRunResponse uploadSpooledTestRun(TestRunSpool.Record record) throws IOException, InterruptedException {
+        SpooledTestRun run = record.getRun();
+        String name = run.getRequest().getName();
+        HttpResponse<ResponseBody> response;
+        try {
+            response = sendTestRun(run.getRequest().toBuilder(), optimizeImage(record.getImage()));
+        } catch (TestRunException e) {
+            // the circuit breaker is open
+            throw new IOException(e.getMessage(), e);
+        }
+        if (response.statusCode() >= 500 || response.statusCode() == 429) {
+            throw new IOException("Server answered with status <" + response.statusCode() + ">");
+        }
+        TestRunResponse testRunResponse;
+        try {
+            testRunResponse = parseResponse(response, TestRunResponse.class);
+        } catch (TestRunException e) {
+            // sending it again would not help
+            deferredErrors.add("Spooled test run <" + name + "> is rejected: " + e.getMessage());
+            return null;
+        }
+        reportTestRun(name, testRunResponse);
+        if (run.getDedupKey() != null) {
+            rememberAccepted(run.getDedupKey(), run.getContentHash(), testRunResponse);
+        }
+        String errorMessage = errorMessage(testRunResponse);
+        // with deferred results they are fetched for the whole build instead
+        if (!errorMessage.isEmpty() && !deferredResults) {
+            deferredErrors.add(errorMessage);
+        }
+        return testRunResponse;
+    }
+
+    /**
+     * Waits until the drainer emptied the spool. Gives up after {@code stopMaxAttempts} failed uploads
+     * or if the drainer is gone, keeping the rest of the spool on disk.
+     */
+    private void flushSpool() throws InterruptedException {
+        if (spool == null) {
+            return;
+        }
+        long failuresBefore = spoolFailures.get();
+        while (!spool.awaitEmpty(configuration.getRetryBackoffInMillis())) {
+            if (spoolFailures.get() - failuresBefore >= configuration.getStopMaxAttempts() || !spoolDrainer.isAlive()) {
+                throw new TestRunException("<" + spool.size() + "> test runs could not be uploaded and are kept in spool <"
+                        + configuration.getSpoolDirectory() + ">");
+            }
+            log.info("Waiting for <{}> spooled test runs", spool.size());
+        }
+    }
+
+    private void reportDeferredErrors() {
+        List<String> errorMessages;
+        synchronized (deferredErrors) {
+            errorMessages = new ArrayList<>(deferredErrors);
+            deferredErrors.clear();
+        }
+        if (errorMessages.isEmpty()) {
+            return;
+        }
+        if (configuration.getEnableSoftAssert()) {
+            errorMessages.forEach(log::error);
+        } else {
+            throw new TestRunException(String.join("\n", errorMessages));
+        }
+    }
+
+    /**
+     * Spooled test runs have no status yet, they are reported once uploaded.
+     */
+    private void reportTestRun(String name, TestRunResponse testRunResponse) {
+        if (testRunResponse.getStatus() != null) {
+            metrics.onTestRun(name, testRunResponse.getStatus());
+        }
+    }
+
+    /**
+     * Dedup hashes are taken from the original image, so re-encoding never invalidates the index.
+     */
+    private ImageSource optimizeImage(ImageSource image) {
+        return imageOptimization ? PngOptimizer.optimize(image) : image;
+    }
+
+    /**
+     * Re-encodes on the async executor, so the caller of {@code trackAsync} is not held up by it.
+     */
+    private CompletableFuture<ImageSource> optimizeImageAsync(ImageSource image) {
+        if (!imageOptimization) {
+            return CompletableFuture.completedFuture(image);
+        }
+        return CompletableFuture.supplyAsync(() -> PngOptimizer.optimize(image), asyncExecutor);
+    }
+
+    /**
+     * Response reported for an image identical to the last accepted one, which is not uploaded at all.
+     */
+    private TestRunResponse unchangedTestRun(String name) {
+        log.info("Image of test run <{}> is unchanged since it was last accepted, upload is skipped", name);
+        return TestRunResponse.builder()
+                .status(TestRunStatus.OK)
+                .build();
+    }
+
+    private TestRunResponse rememberAccepted(String dedupKey, String contentHash, TestRunResponse testRunResponse) {
+        if (ACCEPTED_STATUSES.contains(testRunResponse.getStatus())) {
+            dedupIndex.put(dedupKey, contentHash, testRunResponse.getBaselineName());
+        }
+        return testRunResponse;
+    }
+
+    private void saveDedupIndex() {
+        if (dedupIndex != null) {
+            dedupIndex.save();
+        }
+    }
+
+    /**
+     * Servers without the multipart endpoint answer with 404. Upload falls back to JSON for the rest of the build.
+     */
+    private boolean isMultipartUnsupported(HttpResponse<ResponseBody> response) {
+        if (response.statusCode() != 404) {
+            return false;
+        }
+        if (multipartUpload) {
+            multipartUpload = false;
+            log.warn("Multipart upload is not supported by <{}>, falling back to JSON upload", configuration.getApiUrl());
+        }
+        return true;
+    }
+
+    protected void awaitPendingSubmissions() {
+        while (!pendingSubmissions.isEmpty()) {
+            log.info("Waiting for <{}> pending test runs", pendingSubmissions.size());
+            CompletableFuture.allOf(pendingSubmissions.toArray(new CompletableFuture[0]))
+                    .exceptionally(throwable -> null)
+                    .join();
+        }
+    }
+
+    private TestRunRequest.TestRunRequestBuilder testRunRequestBuilder(TrackerSession session, String name,
+                                                                       TestRunOptions testRunOptions) {
+        return TestRunRequest.builder()
+                .projectId(session.getProjectId())
+                .buildId(session.getBuildId())
                 .branchName(configuration.getBranchName())
                 .name(name)
-                .imageBase64(imageBase64)
                 .os(testRunOptions.getOs())
                 .browser(testRunOptions.getBrowser())
                 .viewport(testRunOptions.getViewport())
                 .device(testRunOptions.getDevice())
                 .customTags(testRunOptions.getCustomTags())
                 .diffTollerancePercent(testRunOptions.getDiffTollerancePercent())
-                .ignoreAreas(testRunOptions.getIgnoreAreas())
-                .build();
+                .ignoreAreas(testRunOptions.getIgnoreAreas());
+    }
+
+    private TestRunResult toTestRunResult(TestRunResponse testResultDTO) {
+        String errorMessage = errorMessage(testResultDTO);
+
+        if (!errorMessage.isEmpty()) {
+            if (configuration.getEnableSoftAssert()) {
+                log.error(errorMessage);
+            } else {
+                throw new TestRunException(errorMessage);
+            }
+        }
+
+        return new TestRunResult(testResultDTO, this.paths);
+    }
+
+    private static String errorMessage(TestRunResponse testResultDTO) {
+        if (testResultDTO.getStatus() == null) {
+            return "";
+        }
+        // test runs fetched for a build have no url
+        String testRun = testResultDTO.getUrl() != null ? testResultDTO.getUrl() : testResultDTO.getName();
+        switch (testResultDTO.getStatus()) {
+            case NEW:
+                return "No baseline: ".concat(testRun);
+            case UNRESOLVED:
+                return "Difference found: ".concat(testRun);
+            default:
+                return "";
+        }
+    }
+
+    private static TestRunResponse getSubmissionResult(CompletableFuture<TestRunResponse> submission) throws IOException {
+        try {
+            return submission.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private HttpResponse<ResponseBody> getResponse(METHOD method, String url, RequestBody body,
+                                                   RetryPolicy retryPolicy) throws IOException, InterruptedException {
+        RequestBody requestBody = compress(body);
+        HttpResponse<ResponseBody> response = exchange(method, url, requestBody, retryPolicy);
+        if (isCompressionUnsupported(requestBody, response)) {
+            response = exchange(method, url, body, retryPolicy);
+        }
+        return response;
+    }
+
+    private CompletableFuture<HttpResponse<ResponseBody>> getResponseAsync(METHOD method, String url, RequestBody body,
+                                                                           RetryPolicy retryPolicy) {
+        RequestBody requestBody = compress(body);
+        return exchangeAsync(method, url, requestBody, retryPolicy)
+                .thenCompose(response -> isCompressionUnsupported(requestBody, response)
+                        ? exchangeAsync(method, url, body, retryPolicy)
+                        : CompletableFuture.completedFuture(response));
+    }
+
+    private HttpResponse<ResponseBody> exchange(METHOD method, String url, RequestBody body,
+                                                RetryPolicy retryPolicy) throws IOException, InterruptedException {
+        return exchange(method, buildHttpRequest(method, url, body), body, retryPolicy);
+    }
+
+    private HttpResponse<ResponseBody> exchange(METHOD method, HttpRequest request, RequestBody body,
+                                                RetryPolicy retryPolicy) throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        try {
+            HttpResponse<ResponseBody> response = retrier.execute(retryPolicy, () -> concurrencyLimiter.execute(
+                    body.getExpectedLength(), () -> send(request, body)));
+            reportHttpResponse(method, body, response);
+            return response;
+        } finally {
+            metrics.onPhase(Phase.GET_RESPONSE, Duration.ofNanos(System.nanoTime() - startTime));
+        }
+    }
+
+    private CompletableFuture<HttpResponse<ResponseBody>> exchangeAsync(METHOD method, String url, RequestBody body,
+                                                                        RetryPolicy retryPolicy) {
+        HttpRequest request = buildHttpRequest(method, url, body);
+        long startTime = System.nanoTime();
+        return retrier.executeAsync(retryPolicy, () -> concurrencyLimiter.executeAsync(
+                        body.getExpectedLength(), () -> sendAsync(request, body)))
+                .whenComplete((response, throwable) -> {
+                    if (response != null) {
+                        reportHttpResponse(method, body, response);
+                    }
+                    metrics.onPhase(Phase.GET_RESPONSE, Duration.ofNanos(System.nanoTime() - startTime));
+                });
+    }
+
+    private HttpResponse<ResponseBody> send(HttpRequest request, RequestBody body) throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        try {
+            HttpResponse<ResponseBody> response = transport.send(request, ResponseBody.handler());
+            recordExchange(body, startTime);
+            return response;
+        } catch (HttpTimeoutException e) {
+            if (isResponseTimeout(e)) {
+                recordExchange(body, startTime);
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<HttpResponse<ResponseBody>> sendAsync(HttpRequest request, RequestBody body) {
+        long startTime = System.nanoTime();
+        return transport.sendAsync(request, ResponseBody.handler())
+                .whenComplete((response, throwable) -> {
+                    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    if (response != null || isResponseTimeout(cause)) {
+                        recordExchange(body, startTime);
+                    }
+                });
+    }
+
+    private static boolean isResponseTimeout(Throwable throwable) {
+        return throwable instanceof HttpTimeoutException && !(throwable instanceof HttpConnectTimeoutException);
+    }
+
+    /**
+     * Feeds the duration of an exchange to the adaptive timeout, without the time spent waiting for a connection slot.
+     */
+    private void recordExchange(RequestBody body, long startTime) {
+        if (adaptiveTimeout != null) {
+            long transferredLength = body.getTransferredLength();
+            adaptiveTimeout.record(transferredLength >= 0 ? transferredLength : body.getExpectedLength(),
+                    Duration.ofNanos(System.nanoTime() - startTime));
+        }
+    }
+
+    private void reportHttpResponse(METHOD method, RequestBody body, HttpResponse<ResponseBody> response) {
+        if (!metrics.isEmpty()) {
+            metrics.onHttpResponse(method.name(), response.statusCode(), body.getTransferredLength(), response.body().length());
+        }
+    }
+
+    /**
+     * Only JSON is compressed: multipart bodies consist mostly of the already compressed PNG.
+     */
+    private RequestBody compress(RequestBody body) {
+        if (!compression || body.getContentEncoding() != null
+                || !RequestBody.JSON_CONTENT_TYPE.equals(body.getContentType())
+                || body.getContentLength() < configuration.getCompressionThresholdInBytes()) {
+            return body;
+        }
+        return body.gzip(COMPRESSION_LEVEL);
+    }
 
-        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofString(gson.toJson(newTestRun));
-        HttpResponse<String> response = getResponse(METHOD.POST, paths.getTestRunPath(), body);
-        return handleResponse(response, TestRunResponse.class);
+    /**
+     * Servers that can't decode compressed requests answer with 415. Requests are sent uncompressed for the rest of the build.
+     */
+    private boolean isCompressionUnsupported(RequestBody requestBody, HttpResponse<ResponseBody> response) {
+        if (requestBody.getContentEncoding() == null || response.statusCode() != 415) {
+            return false;
+        }
+        if (compression) {
+            compression = false;
+            log.warn("Compressed requests are not supported by <{}>, sending them uncompressed", configuration.getApiUrl());
+        }
+        return true;
     }
 
-    private HttpResponse<String> getResponse(METHOD method, String url, HttpRequest.BodyPublisher body) throws IOException, InterruptedException {
+    private HttpRequest buildHttpRequest(METHOD method, String url, RequestBody body) {
+        return getRequest(method, body.toBodyPublisher(), httpRequestBuilder(url, body));
+    }
+
+    private HttpRequest.Builder httpRequestBuilder(String url, RequestBody body) {
         HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                .timeout(Duration.ofSeconds(configuration.getHttpTimeoutInSeconds()))
+                .timeout(adaptiveTimeout != null
+                        ? adaptiveTimeout.timeout(body.getExpectedLength())
+                        : Duration.ofSeconds(configuration.getHttpTimeoutInSeconds()))
                 .header(API_KEY_HEADER, configuration.getApiKey())
                 .header(PROJECT_HEADER, configuration.getProject())
-                .header("Content-Type", "application/json;charset=UTF-8")
+                .header("Content-Type", body.getContentType())
                 .uri(URI.create(url));
-        HttpRequest request = getRequest(method, body, requestBuilder);
-        HttpResponse<String> response = HttpClient.newBuilder()
-                .version(HttpClient.Version.HTTP_1_1)
-                .connectTimeout(Duration.ofSeconds(configuration.getHttpTimeoutInSeconds()))
-                .build()
-                .send(request, HttpResponse.BodyHandlers.ofString());
-        return response;
+        if (body.getContentEncoding() != null) {
+            requestBuilder.header("Content-Encoding", body.getContentEncoding());
+        }
+        if (configuration.getEnableCompression()) {
+            requestBuilder.header("Accept-Encoding", RequestBody.GZIP_ENCODING);
+        }
+        return requestBuilder;
     }
 
     protected HttpRequest getRequest(METHOD method, HttpRequest.BodyPublisher body, HttpRequest.Builder requestBuilder) {
         switch (method) {
+            case GET:
+                return requestBuilder.GET().build();
             case PATCH:
                 return requestBuilder.method("PATCH", body).build();
             case POST:
@@ -179,11 +1354,42 @@ public class VisualRegressionTracker {
         }
     }
 
+    /**
+     * Parses the response straight from the received buffers, without decoding it into a String first.
+     */
+    protected <T> T parseResponse(HttpResponse<ResponseBody> response, Class<T> classOfT) {
+        return parseResponse(response.statusCode(), response.body(), classOfT);
+    }
+
+    /**
+     * @deprecated responses are received as {@link ResponseBody}, use {@link #parseResponse(HttpResponse, Class)}
+     */
+    @Deprecated
     protected <T> T handleResponse(HttpResponse<String> response, Class<T> classOfT) {
-        String responseBody = response.body();
-        if (!String.valueOf(response.statusCode()).startsWith("2")) {
-            throw new TestRunException(responseBody);
+        return parseResponse(response.statusCode(), ResponseBody.of(response.body()), classOfT);
+    }
+
+    private <T> T parseResponse(int statusCode, ResponseBody responseBody, Class<T> classOfT) {
+        long startTime = System.nanoTime();
+        try {
+            if (!String.valueOf(statusCode).startsWith("2")) {
+                throw new TestRunException(responseBody.asString());
+            }
+            SerializationEvent event = new SerializationEvent();
+            event.begin();
+            T result = gson.fromJson(new InputStreamReader(responseBody.openStream(), StandardCharsets.UTF_8), classOfT);
+            commitSerializationEvent(event, classOfT, responseBody.length());
+            return result;
+        } finally {
+            metrics.onPhase(Phase.HANDLE_RESPONSE, Duration.ofNanos(System.nanoTime() - startTime));
+        }
+    }
+
+    private static void commitSerializationEvent(SerializationEvent event, Class<?> type, long bytes) {
+        if (event.shouldCommit()) {
+            event.setType(type.getSimpleName());
+            event.setBytes(bytes);
+            event.commit();
         }
-        return gson.fromJson(responseBody, classOfT);
     }
 }
@@ -2,6 +2,9 @@ package io.visual_regression_tracker.sdk_java;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import io.visual_regression_tracker.sdk_java.compare.LocalCheckMode;
+import io.visual_regression_tracker.sdk_java.compare.PixelComparator;
+import io.visual_regression_tracker.sdk_java.concurrent.ThreadMode;
 import lombok.*;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
@@ -18,7 +21,6 @@ import java.util.function.Function;
 
 @Data()
 @RequiredArgsConstructor
-@AllArgsConstructor
 @Accessors(chain = true)
 @Slf4j
 public class VisualRegressionTrackerConfig {
@@ -34,6 +36,54 @@ public class VisualRegressionTrackerConfig {
     private String ciBuildId;
     private Boolean enableSoftAssert;
     private int httpTimeoutInSeconds;
+    private int maxConnections = VisualRegressionTrackerConfigBuilder.DEFAULT_MAX_CONNECTIONS;
+    private Boolean enableHttp2 = VisualRegressionTrackerConfigBuilder.DEFAULT_HTTP2_STATE;
+    private int asyncThreads = VisualRegressionTrackerConfigBuilder.DEFAULT_ASYNC_THREADS;
+    private int maxAsyncInFlight = VisualRegressionTrackerConfigBuilder.DEFAULT_MAX_ASYNC_IN_FLIGHT;
+    private Boolean enableMultipartUpload = VisualRegressionTrackerConfigBuilder.DEFAULT_MULTIPART_UPLOAD_STATE;
+    private String dedupIndexFile;
+    private int dedupIndexMaxEntries = VisualRegressionTrackerConfigBuilder.DEFAULT_DEDUP_INDEX_MAX_ENTRIES;
+    private int dedupIndexMaxAgeInDays = VisualRegressionTrackerConfigBuilder.DEFAULT_DEDUP_INDEX_MAX_AGE_DAYS;
+    private int startMaxAttempts = VisualRegressionTrackerConfigBuilder.DEFAULT_MAX_ATTEMPTS;
+    private int trackMaxAttempts = VisualRegressionTrackerConfigBuilder.DEFAULT_MAX_ATTEMPTS;
+    private int stopMaxAttempts = VisualRegressionTrackerConfigBuilder.DEFAULT_MAX_ATTEMPTS;
+    private int retryBackoffInMillis = VisualRegressionTrackerConfigBuilder.DEFAULT_RETRY_BACKOFF_MILLIS;
+    private int retryMaxBackoffInMillis = VisualRegressionTrackerConfigBuilder.DEFAULT_RETRY_MAX_BACKOFF_MILLIS;
+    private int circuitBreakerFailureThreshold = VisualRegressionTrackerConfigBuilder.DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+    private int circuitBreakerOpenInSeconds = VisualRegressionTrackerConfigBuilder.DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS;
+    private int trackAllParallelism = VisualRegressionTrackerConfigBuilder.DEFAULT_TRACK_ALL_PARALLELISM;
+    private ThreadMode threadMode = VisualRegressionTrackerConfigBuilder.DEFAULT_THREAD_MODE;
+    private Boolean enableAdaptiveConcurrency = VisualRegressionTrackerConfigBuilder.DEFAULT_ENABLE_ADAPTIVE_CONCURRENCY;
+    private Boolean enableMetricsSummary = VisualRegressionTrackerConfigBuilder.DEFAULT_ENABLE_METRICS_SUMMARY;
+    private Boolean enableCompression = VisualRegressionTrackerConfigBuilder.DEFAULT_ENABLE_COMPRESSION;
+    private int compressionThresholdInBytes = VisualRegressionTrackerConfigBuilder.DEFAULT_COMPRESSION_THRESHOLD_BYTES;
+    private Boolean enableImageOptimization = VisualRegressionTrackerConfigBuilder.DEFAULT_ENABLE_IMAGE_OPTIMIZATION;
+    private String sharedBuildFile;
+    private int shardCount = VisualRegressionTrackerConfigBuilder.DEFAULT_SHARD_COUNT;
+    private String spoolDirectory;
+    private int spoolSegmentSizeInBytes = VisualRegressionTrackerConfigBuilder.DEFAULT_SPOOL_SEGMENT_SIZE_BYTES;
+    private Boolean enableDeferredResults = VisualRegressionTrackerConfigBuilder.DEFAULT_ENABLE_DEFERRED_RESULTS;
+    private long imageBudgetInBytes = VisualRegressionTrackerConfigBuilder.DEFAULT_IMAGE_BUDGET_BYTES;
+    private Boolean rejectOverImageBudget = VisualRegressionTrackerConfigBuilder.DEFAULT_REJECT_OVER_IMAGE_BUDGET;
+    private LocalCheckMode localCheckMode = VisualRegressionTrackerConfigBuilder.DEFAULT_LOCAL_CHECK_MODE;
+    private float localCheckThreshold = VisualRegressionTrackerConfigBuilder.DEFAULT_LOCAL_CHECK_THRESHOLD;
+    private String imageCacheDirectory = VisualRegressionTrackerConfigBuilder.DEFAULT_IMAGE_CACHE_DIRECTORY;
+    private long imageCacheMaxSizeInBytes = VisualRegressionTrackerConfigBuilder.DEFAULT_IMAGE_CACHE_MAX_SIZE_BYTES;
+    private int warmUpConnections = VisualRegressionTrackerConfigBuilder.DEFAULT_WARM_UP_CONNECTIONS;
+    private Integer connectTimeoutInMillis;
+    private Boolean enableAdaptiveTimeouts = VisualRegressionTrackerConfigBuilder.DEFAULT_ENABLE_ADAPTIVE_TIMEOUTS;
+    private int minWriteTimeoutInMillis = VisualRegressionTrackerConfigBuilder.DEFAULT_MIN_WRITE_TIMEOUT_MILLIS;
+    private int minResponseTimeoutInMillis = VisualRegressionTrackerConfigBuilder.DEFAULT_MIN_RESPONSE_TIMEOUT_MILLIS;
+
+    public VisualRegressionTrackerConfig(String apiUrl, String apiKey, String project,
+                                         String branchName, String ciBuildId, Boolean enableSoftAssert,
+                                         int httpTimeoutInSeconds) {
+        this(apiUrl, apiKey, project);
+        this.branchName = branchName;
+        this.ciBuildId = ciBuildId;
+        this.enableSoftAssert = enableSoftAssert;
+        this.httpTimeoutInSeconds = httpTimeoutInSeconds;
+    }
 
     public static VisualRegressionTrackerConfigBuilder builder() {
         return new VisualRegressionTrackerConfigBuilder();
@@ -48,12 +98,82 @@ public class VisualRegressionTrackerConfig {
         private String ciBuildId;
         private Boolean enableSoftAssert;
         private Integer httpTimeoutInSeconds;
+        private Integer maxConnections;
+        private Boolean enableHttp2;
+        private Integer asyncThreads;
+        private Integer maxAsyncInFlight;
+        private Boolean enableMultipartUpload;
+        private String dedupIndexFile;
+        private Integer dedupIndexMaxEntries;
+        private Integer dedupIndexMaxAgeInDays;
+        private Integer startMaxAttempts;
+        private Integer trackMaxAttempts;
+        private Integer stopMaxAttempts;
+        private Integer retryBackoffInMillis;
+        private Integer retryMaxBackoffInMillis;
+        private Integer circuitBreakerFailureThreshold;
+        private Integer circuitBreakerOpenInSeconds;
+        private Integer trackAllParallelism;
+        private ThreadMode threadMode;
+        private Boolean enableAdaptiveConcurrency;
+        private Boolean enableMetricsSummary;
+        private Boolean enableCompression;
+        private Integer compressionThresholdInBytes;
+        private Boolean enableImageOptimization;
+        private String sharedBuildFile;
+        private Integer shardCount;
+        private String spoolDirectory;
+        private Integer spoolSegmentSizeInBytes;
+        private Boolean enableDeferredResults;
+        private Long imageBudgetInBytes;
+        private Boolean rejectOverImageBudget;
+        private LocalCheckMode localCheckMode;
+        private Float localCheckThreshold;
+        private String imageCacheDirectory;
+        private Long imageCacheMaxSizeInBytes;
+        private Integer warmUpConnections;
+        private Integer connectTimeoutInMillis;
+        private Boolean enableAdaptiveTimeouts;
+        private Integer minWriteTimeoutInMillis;
+        private Integer minResponseTimeoutInMillis;
 
         private File configFile;
 
         private static final String VRT_ENV_VARIABLE_PREFIX = "VRT_";
         private static final boolean DEFAULT_SOFT_ASSERTION_STATE = false;
         private static final int DEFAULT_HTTP_TIMEOUT_SECONDS = 10;
+        private static final int DEFAULT_MAX_CONNECTIONS = 10;
+        private static final boolean DEFAULT_HTTP2_STATE = false;
+        private static final int DEFAULT_ASYNC_THREADS = 4;
+        private static final int DEFAULT_MAX_ASYNC_IN_FLIGHT = 16;
+        private static final boolean DEFAULT_MULTIPART_UPLOAD_STATE = false;
+        private static final int DEFAULT_DEDUP_INDEX_MAX_ENTRIES = 10_000;
+        private static final int DEFAULT_DEDUP_INDEX_MAX_AGE_DAYS = 30;
+        private static final int DEFAULT_MAX_ATTEMPTS = 1;
+        private static final int DEFAULT_RETRY_BACKOFF_MILLIS = 200;
+        private static final int DEFAULT_RETRY_MAX_BACKOFF_MILLIS = 5_000;
+        private static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 0;
+        private static final int DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS = 30;
+        private static final int DEFAULT_TRACK_ALL_PARALLELISM = 4;
+        private static final ThreadMode DEFAULT_THREAD_MODE = ThreadMode.PLATFORM;
+        private static final boolean DEFAULT_ENABLE_ADAPTIVE_CONCURRENCY = false;
+        private static final boolean DEFAULT_ENABLE_METRICS_SUMMARY = false;
+        private static final boolean DEFAULT_ENABLE_COMPRESSION = false;
+        private static final int DEFAULT_COMPRESSION_THRESHOLD_BYTES = 1024;
+        private static final boolean DEFAULT_ENABLE_IMAGE_OPTIMIZATION = false;
+        private static final int DEFAULT_SHARD_COUNT = 1;
+        private static final int DEFAULT_SPOOL_SEGMENT_SIZE_BYTES = 64 * 1024 * 1024;
+        private static final boolean DEFAULT_ENABLE_DEFERRED_RESULTS = false;
+        private static final long DEFAULT_IMAGE_BUDGET_BYTES = 0;
+        private static final boolean DEFAULT_REJECT_OVER_IMAGE_BUDGET = false;
+        private static final LocalCheckMode DEFAULT_LOCAL_CHECK_MODE = LocalCheckMode.OFF;
+        private static final float DEFAULT_LOCAL_CHECK_THRESHOLD = PixelComparator.DEFAULT_THRESHOLD;
+        private static final String DEFAULT_IMAGE_CACHE_DIRECTORY = "build/vrt-images";
+        private static final long DEFAULT_IMAGE_CACHE_MAX_SIZE_BYTES = 256 * 1024 * 1024;
+        private static final int DEFAULT_WARM_UP_CONNECTIONS = 0;
+        private static final boolean DEFAULT_ENABLE_ADAPTIVE_TIMEOUTS = false;
+        private static final int DEFAULT_MIN_WRITE_TIMEOUT_MILLIS = 1000;
+        private static final int DEFAULT_MIN_RESPONSE_TIMEOUT_MILLIS = 5000;
 
         public VisualRegressionTrackerConfigBuilder apiUrl(String apiUrl) {
             this.apiUrl = apiUrl;
@@ -90,6 +210,196 @@ public class VisualRegressionTrackerConfig {
             return this;
         }
 
+        public VisualRegressionTrackerConfigBuilder maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder enableHttp2(Boolean enableHttp2) {
+            this.enableHttp2 = enableHttp2;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder asyncThreads(int asyncThreads) {
+            this.asyncThreads = asyncThreads;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder maxAsyncInFlight(int maxAsyncInFlight) {
+            this.maxAsyncInFlight = maxAsyncInFlight;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder enableMultipartUpload(Boolean enableMultipartUpload) {
+            this.enableMultipartUpload = enableMultipartUpload;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder dedupIndexFile(String dedupIndexFile) {
+            this.dedupIndexFile = dedupIndexFile;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder dedupIndexMaxEntries(int dedupIndexMaxEntries) {
+            this.dedupIndexMaxEntries = dedupIndexMaxEntries;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder dedupIndexMaxAgeInDays(int dedupIndexMaxAgeInDays) {
+            this.dedupIndexMaxAgeInDays = dedupIndexMaxAgeInDays;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder startMaxAttempts(int startMaxAttempts) {
+            this.startMaxAttempts = startMaxAttempts;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder trackMaxAttempts(int trackMaxAttempts) {
+            this.trackMaxAttempts = trackMaxAttempts;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder stopMaxAttempts(int stopMaxAttempts) {
+            this.stopMaxAttempts = stopMaxAttempts;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder retryBackoffInMillis(int retryBackoffInMillis) {
+            this.retryBackoffInMillis = retryBackoffInMillis;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder retryMaxBackoffInMillis(int retryMaxBackoffInMillis) {
+            this.retryMaxBackoffInMillis = retryMaxBackoffInMillis;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder circuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+            this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder circuitBreakerOpenInSeconds(int circuitBreakerOpenInSeconds) {
+            this.circuitBreakerOpenInSeconds = circuitBreakerOpenInSeconds;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder trackAllParallelism(int trackAllParallelism) {
+            this.trackAllParallelism = trackAllParallelism;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder threadMode(ThreadMode threadMode) {
+            this.threadMode = threadMode;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder enableAdaptiveConcurrency(Boolean enableAdaptiveConcurrency) {
+            this.enableAdaptiveConcurrency = enableAdaptiveConcurrency;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder enableMetricsSummary(Boolean enableMetricsSummary) {
+            this.enableMetricsSummary = enableMetricsSummary;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder enableCompression(Boolean enableCompression) {
+            this.enableCompression = enableCompression;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder compressionThresholdInBytes(int compressionThresholdInBytes) {
+            this.compressionThresholdInBytes = compressionThresholdInBytes;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder enableImageOptimization(Boolean enableImageOptimization) {
+            this.enableImageOptimization = enableImageOptimization;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder sharedBuildFile(String sharedBuildFile) {
+            this.sharedBuildFile = sharedBuildFile;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder shardCount(int shardCount) {
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder spoolDirectory(String spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder spoolSegmentSizeInBytes(int spoolSegmentSizeInBytes) {
+            this.spoolSegmentSizeInBytes = spoolSegmentSizeInBytes;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder enableDeferredResults(Boolean enableDeferredResults) {
+            this.enableDeferredResults = enableDeferredResults;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder imageBudgetInBytes(long imageBudgetInBytes) {
+            this.imageBudgetInBytes = imageBudgetInBytes;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder rejectOverImageBudget(Boolean rejectOverImageBudget) {
+            this.rejectOverImageBudget = rejectOverImageBudget;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder localCheckMode(LocalCheckMode localCheckMode) {
+            this.localCheckMode = localCheckMode;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder localCheckThreshold(float localCheckThreshold) {
+            this.localCheckThreshold = localCheckThreshold;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder imageCacheDirectory(String imageCacheDirectory) {
+            this.imageCacheDirectory = imageCacheDirectory;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder imageCacheMaxSizeInBytes(long imageCacheMaxSizeInBytes) {
+            this.imageCacheMaxSizeInBytes = imageCacheMaxSizeInBytes;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder warmUpConnections(int warmUpConnections) {
+            this.warmUpConnections = warmUpConnections;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder connectTimeoutInMillis(int connectTimeoutInMillis) {
+            this.connectTimeoutInMillis = connectTimeoutInMillis;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder enableAdaptiveTimeouts(Boolean enableAdaptiveTimeouts) {
+            this.enableAdaptiveTimeouts = enableAdaptiveTimeouts;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder minWriteTimeoutInMillis(int minWriteTimeoutInMillis) {
+            this.minWriteTimeoutInMillis = minWriteTimeoutInMillis;
+            return this;
+        }
+
+        public VisualRegressionTrackerConfigBuilder minResponseTimeoutInMillis(int minResponseTimeoutInMillis) {
+            this.minResponseTimeoutInMillis = minResponseTimeoutInMillis;
+            return this;
+        }
+
         public VisualRegressionTrackerConfigBuilder configFile(File configFile) {
             this.configFile = configFile;
             return this;
@@ -115,6 +425,116 @@ public class VisualRegressionTrackerConfig {
             Integer actualHttpTimeoutInSeconds = resolve("httpTimeoutInSeconds", configFromFile);
             config.setHttpTimeoutInSeconds(actualHttpTimeoutInSeconds == null ? DEFAULT_HTTP_TIMEOUT_SECONDS : actualHttpTimeoutInSeconds);
 
+            Integer actualMaxConnections = resolve("maxConnections", configFromFile);
+            config.setMaxConnections(actualMaxConnections == null ? DEFAULT_MAX_CONNECTIONS : actualMaxConnections);
+
+            Boolean actualEnableHttp2 = resolve("enableHttp2", configFromFile);
+            config.setEnableHttp2(actualEnableHttp2 == null ? DEFAULT_HTTP2_STATE : actualEnableHttp2);
+
+            Integer actualAsyncThreads = resolve("asyncThreads", configFromFile);
+            config.setAsyncThreads(actualAsyncThreads == null ? DEFAULT_ASYNC_THREADS : actualAsyncThreads);
+
+            Integer actualMaxAsyncInFlight = resolve("maxAsyncInFlight", configFromFile);
+            config.setMaxAsyncInFlight(actualMaxAsyncInFlight == null ? DEFAULT_MAX_ASYNC_IN_FLIGHT : actualMaxAsyncInFlight);
+
+            Boolean actualEnableMultipartUpload = resolve("enableMultipartUpload", configFromFile);
+            config.setEnableMultipartUpload(actualEnableMultipartUpload == null ? DEFAULT_MULTIPART_UPLOAD_STATE : actualEnableMultipartUpload);
+
+            config.setDedupIndexFile(resolve("dedupIndexFile", configFromFile));
+
+            Integer actualDedupIndexMaxEntries = resolve("dedupIndexMaxEntries", configFromFile);
+            config.setDedupIndexMaxEntries(actualDedupIndexMaxEntries == null ? DEFAULT_DEDUP_INDEX_MAX_ENTRIES : actualDedupIndexMaxEntries);
+
+            Integer actualDedupIndexMaxAgeInDays = resolve("dedupIndexMaxAgeInDays", configFromFile);
+            config.setDedupIndexMaxAgeInDays(actualDedupIndexMaxAgeInDays == null ? DEFAULT_DEDUP_INDEX_MAX_AGE_DAYS : actualDedupIndexMaxAgeInDays);
+
+            Integer actualStartMaxAttempts = resolve("startMaxAttempts", configFromFile);
+            config.setStartMaxAttempts(actualStartMaxAttempts == null ? DEFAULT_MAX_ATTEMPTS : actualStartMaxAttempts);
+
+            Integer actualTrackMaxAttempts = resolve("trackMaxAttempts", configFromFile);
+            config.setTrackMaxAttempts(actualTrackMaxAttempts == null ? DEFAULT_MAX_ATTEMPTS : actualTrackMaxAttempts);
+
+            Integer actualStopMaxAttempts = resolve("stopMaxAttempts", configFromFile);
+            config.setStopMaxAttempts(actualStopMaxAttempts == null ? DEFAULT_MAX_ATTEMPTS : actualStopMaxAttempts);
+
+            Integer actualRetryBackoffInMillis = resolve("retryBackoffInMillis", configFromFile);
+            config.setRetryBackoffInMillis(actualRetryBackoffInMillis == null ? DEFAULT_RETRY_BACKOFF_MILLIS : actualRetryBackoffInMillis);
+
+            Integer actualRetryMaxBackoffInMillis = resolve("retryMaxBackoffInMillis", configFromFile);
+            config.setRetryMaxBackoffInMillis(actualRetryMaxBackoffInMillis == null ? DEFAULT_RETRY_MAX_BACKOFF_MILLIS : actualRetryMaxBackoffInMillis);
+
+            Integer actualCircuitBreakerFailureThreshold = resolve("circuitBreakerFailureThreshold", configFromFile);
+            config.setCircuitBreakerFailureThreshold(actualCircuitBreakerFailureThreshold == null ? DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD : actualCircuitBreakerFailureThreshold);
+
+            Integer actualCircuitBreakerOpenInSeconds = resolve("circuitBreakerOpenInSeconds", configFromFile);
+            config.setCircuitBreakerOpenInSeconds(actualCircuitBreakerOpenInSeconds == null ? DEFAULT_CIRCUIT_BREAKER_OPEN_SECONDS : actualCircuitBreakerOpenInSeconds);
+
+            Integer actualTrackAllParallelism = resolve("trackAllParallelism", configFromFile);
+            config.setTrackAllParallelism(actualTrackAllParallelism == null ? DEFAULT_TRACK_ALL_PARALLELISM : actualTrackAllParallelism);
+
+            ThreadMode actualThreadMode = resolve("threadMode", configFromFile);
+            config.setThreadMode(actualThreadMode == null ? DEFAULT_THREAD_MODE : actualThreadMode);
+
+            Boolean actualEnableAdaptiveConcurrency = resolve("enableAdaptiveConcurrency", configFromFile);
+            config.setEnableAdaptiveConcurrency(actualEnableAdaptiveConcurrency == null ? DEFAULT_ENABLE_ADAPTIVE_CONCURRENCY : actualEnableAdaptiveConcurrency);
+
+            Boolean actualEnableMetricsSummary = resolve("enableMetricsSummary", configFromFile);
+            config.setEnableMetricsSummary(actualEnableMetricsSummary == null ? DEFAULT_ENABLE_METRICS_SUMMARY : actualEnableMetricsSummary);
+
+            Boolean actualEnableCompression = resolve("enableCompression", configFromFile);
+            config.setEnableCompression(actualEnableCompression == null ? DEFAULT_ENABLE_COMPRESSION : actualEnableCompression);
+
+            Integer actualCompressionThresholdInBytes = resolve("compressionThresholdInBytes", configFromFile);
+            config.setCompressionThresholdInBytes(actualCompressionThresholdInBytes == null ? DEFAULT_COMPRESSION_THRESHOLD_BYTES : actualCompressionThresholdInBytes);
+
+            Boolean actualEnableImageOptimization = resolve("enableImageOptimization", configFromFile);
+            config.setEnableImageOptimization(actualEnableImageOptimization == null ? DEFAULT_ENABLE_IMAGE_OPTIMIZATION : actualEnableImageOptimization);
+
+            config.setSharedBuildFile(resolve("sharedBuildFile", configFromFile));
+
+            Integer actualShardCount = resolve("shardCount", configFromFile);
+            config.setShardCount(actualShardCount == null ? DEFAULT_SHARD_COUNT : actualShardCount);
+
+            config.setSpoolDirectory(resolve("spoolDirectory", configFromFile));
+
+            Integer actualSpoolSegmentSizeInBytes = resolve("spoolSegmentSizeInBytes", configFromFile);
+            config.setSpoolSegmentSizeInBytes(actualSpoolSegmentSizeInBytes == null ? DEFAULT_SPOOL_SEGMENT_SIZE_BYTES : actualSpoolSegmentSizeInBytes);
+
+            Boolean actualEnableDeferredResults = resolve("enableDeferredResults", configFromFile);
+            config.setEnableDeferredResults(actualEnableDeferredResults == null ? DEFAULT_ENABLE_DEFERRED_RESULTS : actualEnableDeferredResults);
+
+            Long actualImageBudgetInBytes = resolve("imageBudgetInBytes", configFromFile);
+            config.setImageBudgetInBytes(actualImageBudgetInBytes == null ? DEFAULT_IMAGE_BUDGET_BYTES : actualImageBudgetInBytes);
+
+            Boolean actualRejectOverImageBudget = resolve("rejectOverImageBudget", configFromFile);
+            config.setRejectOverImageBudget(actualRejectOverImageBudget == null ? DEFAULT_REJECT_OVER_IMAGE_BUDGET : actualRejectOverImageBudget);
+
+            LocalCheckMode actualLocalCheckMode = resolve("localCheckMode", configFromFile);
+            config.setLocalCheckMode(actualLocalCheckMode == null ? DEFAULT_LOCAL_CHECK_MODE : actualLocalCheckMode);
+
+            Float actualLocalCheckThreshold = resolve("localCheckThreshold", configFromFile);
+            config.setLocalCheckThreshold(actualLocalCheckThreshold == null ? DEFAULT_LOCAL_CHECK_THRESHOLD : actualLocalCheckThreshold);
+
+            String actualImageCacheDirectory = resolve("imageCacheDirectory", configFromFile);
+            config.setImageCacheDirectory(actualImageCacheDirectory == null ? DEFAULT_IMAGE_CACHE_DIRECTORY : actualImageCacheDirectory);
+
+            Long actualImageCacheMaxSizeInBytes = resolve("imageCacheMaxSizeInBytes", configFromFile);
+            config.setImageCacheMaxSizeInBytes(actualImageCacheMaxSizeInBytes == null ? DEFAULT_IMAGE_CACHE_MAX_SIZE_BYTES : actualImageCacheMaxSizeInBytes);
+
+            Integer actualWarmUpConnections = resolve("warmUpConnections", configFromFile);
+            config.setWarmUpConnections(actualWarmUpConnections == null ? DEFAULT_WARM_UP_CONNECTIONS : actualWarmUpConnections);
+
+            config.setConnectTimeoutInMillis(resolve("connectTimeoutInMillis", configFromFile));
+
+            Boolean actualEnableAdaptiveTimeouts = resolve("enableAdaptiveTimeouts", configFromFile);
+            config.setEnableAdaptiveTimeouts(actualEnableAdaptiveTimeouts == null ? DEFAULT_ENABLE_ADAPTIVE_TIMEOUTS : actualEnableAdaptiveTimeouts);
+
+            Integer actualMinWriteTimeoutInMillis = resolve("minWriteTimeoutInMillis", configFromFile);
+            config.setMinWriteTimeoutInMillis(actualMinWriteTimeoutInMillis == null ? DEFAULT_MIN_WRITE_TIMEOUT_MILLIS : actualMinWriteTimeoutInMillis);
+
+            Integer actualMinResponseTimeoutInMillis = resolve("minResponseTimeoutInMillis", configFromFile);
+            config.setMinResponseTimeoutInMillis(actualMinResponseTimeoutInMillis == null ? DEFAULT_MIN_RESPONSE_TIMEOUT_MILLIS : actualMinResponseTimeoutInMillis);
+
             return config;
         }
 
@@ -156,9 +576,27 @@ public class VisualRegressionTrackerConfig {
             if (propertyValue != null) {
                 log.debug("Value of '{}' resolved from config file", propertyName);
             }
+            if (propertyValue instanceof Number && field.getType().equals(Integer.class)) {
+                // Gson reads every JSON number as Double
+                propertyValue = ((Number) propertyValue).intValue();
+            }
+            if (propertyValue instanceof Number && field.getType().equals(Long.class)) {
+                propertyValue = ((Number) propertyValue).longValue();
+            }
+            if (propertyValue instanceof Number && field.getType().equals(Float.class)) {
+                propertyValue = ((Number) propertyValue).floatValue();
+            }
+            if (propertyValue instanceof String && field.getType().isEnum()) {
+                propertyValue = findParser(field.getType()).apply((String) propertyValue);
+            }
             return propertyValue == null ? null : (T) propertyValue;
         }
 
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object parseEnum(Class<?> cls, String value) {
+            return Enum.valueOf((Class<? extends Enum>) cls, value.trim().toUpperCase());
+        }
+
         private Function<String, ?> findParser(Class<?> cls) {
             if (cls.equals(Boolean.class)) {
                 return Boolean::parseBoolean;
@@ -166,6 +604,15 @@ public class VisualRegressionTrackerConfig {
             if (cls.equals(Integer.class)) {
                 return Integer::parseInt;
             }
+            if (cls.equals(Long.class)) {
+                return Long::parseLong;
+            }
+            if (cls.equals(Float.class)) {
+                return Float::parseFloat;
+            }
+            if (cls.isEnum()) {
+                return value -> parseEnum(cls, value);
+            }
             return String::valueOf;
         }
     }
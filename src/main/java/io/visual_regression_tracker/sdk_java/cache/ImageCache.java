@@ -0,0 +1,247 @@
+package io.visual_regression_tracker.sdk_java.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Images of the server kept on disk by name, the least recently used ones are evicted above {@code maxBytes}.
+ * An image cached by an earlier run is revalidated with its ETag and Last-Modified date the first time it is asked for,
+ * afterwards it is served from disk. Concurrent requests for an image not available yet share one download.
+ */
+@Slf4j
+public class ImageCache {
+
+    private static final String VALIDATORS_SUFFIX = ".meta";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private final Path directory;
+    private final long maxBytes;
+    // in access order, so the least recently used image comes first
+    private final Map<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> validated = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+    private long usedBytes;
+    private boolean loaded;
+
+    public ImageCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return file of the image, downloaded or revalidated with the fetcher first if needed
+     */
+    public Path get(String imageName, Fetcher fetcher) throws IOException, InterruptedException {
+        String fileName = fileName(imageName);
+        Path file = directory.resolve(fileName);
+        if (validated.contains(fileName) && touch(fileName, file)) {
+            return file;
+        }
+        CompletableFuture<Path> download = new CompletableFuture<>();
+        CompletableFuture<Path> running = downloads.putIfAbsent(fileName, download);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            fetch(imageName, fileName, file, fetcher);
+            download.complete(file);
+            return file;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            downloads.remove(fileName, download);
+        }
+    }
+
+    public synchronized long getUsedBytes() {
+        loadSizes();
+        return usedBytes;
+    }
+
+    private void fetch(String imageName, String fileName, Path file, Fetcher fetcher) throws IOException, InterruptedException {
+        Files.createDirectories(directory);
+        Validators cached = Files.exists(file) ? readValidators(file) : null;
+        Path temporaryFile = Files.createTempFile(directory, fileName, TEMPORARY_SUFFIX);
+        try {
+            Validators fetched = fetcher.fetch(imageName, cached, temporaryFile);
+            if (fetched == null) {
+                log.debug("Cached image <{}> is not modified", imageName);
+            } else {
+                Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                writeValidators(file, fetched);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        validated.add(fileName);
+        synchronized (this) {
+            loadSizes();
+            Long previousSize = sizes.put(fileName, Files.size(file));
+            usedBytes += sizes.get(fileName) - (previousSize == null ? 0 : previousSize);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            evict(fileName);
+        }
+    }
+
+    /**
+     * Marks the image as used, so it is evicted last.
+     *
+     * @return false if the image was evicted meanwhile
+     */
+    private synchronized boolean touch(String fileName, Path file) throws IOException {
+        if (sizes.get(fileName) == null || !Files.exists(file)) {
+            validated.remove(fileName);
+            return false;
+        }
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        return true;
+    }
+
+    /**
+     * Reads the images cached by earlier runs, in the order they were last used.
+     */
+    private void loadSizes() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            Map<Path, FileTime> lastUsed = files
+                    .filter(file -> !file.getFileName().toString().endsWith(VALIDATORS_SUFFIX))
+                    .filter(file -> !file.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+                    .collect(Collectors.toMap(file -> file, ImageCache::lastModifiedTime));
+            lastUsed.entrySet().stream()
+                    .sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+                    .forEach(entry -> {
+                        long size = entry.getKey().toFile().length();
+                        sizes.put(entry.getKey().getFileName().toString(), size);
+                        usedBytes += size;
+                    });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Can't read image cache <{}>, it is cleaned up by size from now on", directory, e);
+        }
+    }
+
+    private void evict(String keptFileName) throws IOException {
+        Iterator<Map.Entry<String, Long>> iterator = sizes.entrySet().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getKey().equals(keptFileName)) {
+                continue;
+            }
+            Path file = directory.resolve(entry.getKey());
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(validatorsFile(file));
+            usedBytes -= entry.getValue();
+            validated.remove(entry.getKey());
+            iterator.remove();
+            log.debug("Image <{}> is evicted from the image cache", entry.getKey());
+        }
+    }
+
+    private static Path await(CompletableFuture<Path> download) throws IOException, InterruptedException {
+        try {
+            return download.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            if (e.getCause() instanceof InterruptedException) {
+                throw new IOException("Download of the image was interrupted", e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Validators readValidators(Path file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(validatorsFile(file), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            // downloaded again in full
+            return null;
+        }
+        return new Validators(properties.getProperty(ETAG), properties.getProperty(LAST_MODIFIED));
+    }
+
+    private static void writeValidators(Path file, Validators validators) throws IOException {
+        Properties properties = new Properties();
+        if (validators.getEtag() != null) {
+            properties.setProperty(ETAG, validators.getEtag());
+        }
+        if (validators.getLastModified() != null) {
+            properties.setProperty(LAST_MODIFIED, validators.getLastModified());
+        }
+        try (Writer writer = Files.newBufferedWriter(validatorsFile(file), StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+    }
+
+    private static Path validatorsFile(Path file) {
+        return file.resolveSibling(file.getFileName() + VALIDATORS_SUFFIX);
+    }
+
+    private static FileTime lastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String fileName(String imageName) {
+        return imageName.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * ETag and Last-Modified date the server sent with an image, either may be {@code null}.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Validators {
+        private final String etag;
+        private final String lastModified;
+    }
+
+    @FunctionalInterface
+    public interface Fetcher {
+        /**
+         * Downloads the image into {@code target}, unless it still matches the validators of the cached copy.
+         *
+         * @param cached validators of the cached copy, or {@code null} if there is none
+         * @return validators of the downloaded image, or {@code null} if the cached copy is not modified
+         */
+        Validators fetch(String imageName, Validators cached, Path target) throws IOException, InterruptedException;
+    }
+}
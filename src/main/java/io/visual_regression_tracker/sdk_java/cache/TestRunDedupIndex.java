@@ -0,0 +1,203 @@
+package io.visual_regression_tracker.sdk_java.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import io.visual_regression_tracker.sdk_java.TestRunOptions;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persistent index of the content hash of the last accepted image per test run identity,
+ * along with the name of the baseline it was accepted against.
+ * Test run identity is the name, the {@link TestRunOptions} and the branch.
+ * Entries unused for {@code maxAge} are dropped, and the least recently used ones are evicted above {@code maxEntries}.
+ */
+@Slf4j
+public class TestRunDedupIndex {
+
+    private static final Type ENTRIES_TYPE = new TypeToken<Map<String, Entry>>() {}.getType();
+
+    private final Path file;
+    private final int maxEntries;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final Gson gson = new Gson();
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private boolean dirty;
+
+    public TestRunDedupIndex(Path file, int maxEntries, Duration maxAge) {
+        this(file, maxEntries, maxAge, Clock.systemUTC());
+    }
+
+    TestRunDedupIndex(Path file, int maxEntries, Duration maxAge, Clock clock) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.maxAge = maxAge;
+        this.clock = clock;
+        load();
+    }
+
+    public static String key(String name, TestRunOptions testRunOptions, String branchName) {
+        String identity = String.join("\n",
+                String.valueOf(name),
+                String.valueOf(testRunOptions.getOs()),
+                String.valueOf(testRunOptions.getBrowser()),
+                String.valueOf(testRunOptions.getViewport()),
+                String.valueOf(testRunOptions.getDevice()),
+                String.valueOf(testRunOptions.getCustomTags()),
+                String.valueOf(testRunOptions.getDiffTollerancePercent()),
+                String.valueOf(testRunOptions.getIgnoreAreas()),
+                String.valueOf(branchName));
+        return toHex(newDigest().digest(identity.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static String contentHash(ImageSource image) {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = image.openStream()) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @return true if the image with given hash was the last one accepted for the key
+     */
+    public synchronized boolean contains(String key, String contentHash) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.hash.equals(contentHash)) {
+            return false;
+        }
+        entries.remove(key);
+        entries.put(key, new Entry(contentHash, entry.baselineName, clock.millis()));
+        dirty = true;
+        return true;
+    }
+
+    public void put(String key, String contentHash) {
+        put(key, contentHash, null);
+    }
+
+    public synchronized void put(String key, String contentHash, String baselineName) {
+        entries.remove(key);
+        entries.put(key, new Entry(contentHash, baselineName, clock.millis()));
+        dirty = true;
+        evict();
+    }
+
+    /**
+     * @return name of the baseline the last image for the key was accepted against, or {@code null} if unknown
+     */
+    public synchronized String baselineName(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.baselineName;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the index to disk if it was changed. The file is replaced atomically.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        evict();
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+                gson.toJson(entries, ENTRIES_TYPE, writer);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Can't save test run dedup index to <{}>", file, e);
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Entry> stored = gson.fromJson(reader, ENTRIES_TYPE);
+            if (stored != null) {
+                stored.entrySet().stream()
+                        .sorted(Comparator.comparingLong(storedEntry -> storedEntry.getValue().lastUsed))
+                        .forEach(storedEntry -> entries.put(storedEntry.getKey(), storedEntry.getValue()));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can't read test run dedup index <{}>, starting with an empty one", file, e);
+            entries.clear();
+        }
+        evict();
+    }
+
+    private void evict() {
+        long oldestAllowed = clock.millis() - maxAge.toMillis();
+        int sizeBefore = entries.size();
+        entries.values().removeIf(entry -> entry.lastUsed < oldestAllowed);
+        while (entries.size() > maxEntries) {
+            String leastRecentlyUsed = entries.keySet().iterator().next();
+            entries.remove(leastRecentlyUsed);
+        }
+        if (entries.size() != sizeBefore) {
+            dirty = true;
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static class Entry {
+        private final String hash;
+        private final String baselineName;
+        private final long lastUsed;
+
+        private Entry(String hash, String baselineName, long lastUsed) {
+            this.hash = hash;
+            this.baselineName = baselineName;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.visual_regression_tracker.sdk_java.compare;
+
+import io.visual_regression_tracker.sdk_java.TestRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ComparisonResult {
+    private final long diffPixels;
+    private final long totalPixels;
+    private final float diffPercent;
+    private final TestRunStatus status;
+}
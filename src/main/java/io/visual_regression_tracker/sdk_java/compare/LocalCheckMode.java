@@ -0,0 +1,19 @@
+package io.visual_regression_tracker.sdk_java.compare;
+
+/**
+ * How images are compared with their cached baseline before they are uploaded.
+ */
+public enum LocalCheckMode {
+    /**
+     * Every image is uploaded.
+     */
+    OFF,
+    /**
+     * Images matching their baseline are not uploaded, the others are.
+     */
+    SKIP_MATCHING,
+    /**
+     * Images matching their baseline are not uploaded, the others are reported as unresolved without being uploaded.
+     */
+    FAIL_FAST
+}
@@ -0,0 +1,248 @@
+package io.visual_regression_tracker.sdk_java.compare;
+
+import io.visual_regression_tracker.sdk_java.IgnoreAreas;
+import io.visual_regression_tracker.sdk_java.TestRunStatus;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Compares images pixel by pixel like the server's default pixelmatch settings: pixels differ only if their
+ * perceived color distance exceeds the color threshold, anti-aliased pixels and pixels inside ignore areas count
+ * as equal, and the image is unresolved once the share of differing pixels exceeds the diff tolerance.
+ * Images of different size are unresolved. Rows are split into stripes compared in parallel.
+ */
+public final class PixelComparator {
+
+    /**
+     * Color threshold of the server, from 0 for exact equality to 1 for any color.
+     */
+    public static final float DEFAULT_THRESHOLD = 0.1f;
+    // squared YIQ distance between black and white
+    private static final double MAX_YIQ_DELTA = 35215;
+    private static final int STRIPES_PER_CORE = 4;
+
+    private PixelComparator() {
+    }
+
+    public static ComparisonResult compare(Path baseline, ImageSource image, List<IgnoreAreas> ignoreAreas,
+                                           Float diffTollerancePercent) throws IOException {
+        return compare(baseline, image, ignoreAreas, diffTollerancePercent, DEFAULT_THRESHOLD);
+    }
+
+    public static ComparisonResult compare(Path baseline, ImageSource image, List<IgnoreAreas> ignoreAreas,
+                                           Float diffTollerancePercent, float threshold) throws IOException {
+        BufferedImage baselineImage;
+        try (InputStream inputStream = Files.newInputStream(baseline)) {
+            baselineImage = decode(inputStream);
+        }
+        BufferedImage actualImage;
+        try (InputStream inputStream = image.openStream()) {
+            actualImage = decode(inputStream);
+        }
+        return compare(baselineImage, actualImage, ignoreAreas, diffTollerancePercent, threshold);
+    }
+
+    public static ComparisonResult compare(BufferedImage baseline, BufferedImage image, List<IgnoreAreas> ignoreAreas,
+                                           Float diffTollerancePercent) {
+        return compare(baseline, image, ignoreAreas, diffTollerancePercent, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold color threshold, see {@link #DEFAULT_THRESHOLD}
+     */
+    public static ComparisonResult compare(BufferedImage baseline, BufferedImage image, List<IgnoreAreas> ignoreAreas,
+                                           Float diffTollerancePercent, float threshold) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long totalPixels = (long) width * height;
+        if (baseline.getWidth() != width || baseline.getHeight() != height) {
+            return new ComparisonResult(totalPixels, totalPixels, 100, TestRunStatus.UNRESOLVED);
+        }
+        int[][] areas = toAreas(ignoreAreas == null ? Collections.emptyList() : ignoreAreas, width, height);
+        // anti-aliasing is detected from neighbouring rows, so the whole images are read up front
+        int[] baselinePixels = baseline.getRGB(0, 0, width, height, null, 0, width);
+        int[] imagePixels = image.getRGB(0, 0, width, height, null, 0, width);
+        double maxDelta = MAX_YIQ_DELTA * threshold * threshold;
+        int stripes = Math.max(1, Math.min(height, Runtime.getRuntime().availableProcessors() * STRIPES_PER_CORE));
+        int rowsPerStripe = (height + stripes - 1) / stripes;
+        long diffPixels = IntStream.range(0, stripes)
+                .parallel()
+                .mapToLong(stripe -> countDiffPixels(baselinePixels, imagePixels, width, height, areas, maxDelta,
+                        stripe * rowsPerStripe, Math.min(height, (stripe + 1) * rowsPerStripe)))
+                .sum();
+        float diffPercent = totalPixels == 0 ? 0 : diffPixels * 100f / totalPixels;
+        float tolerance = diffTollerancePercent == null ? 0 : diffTollerancePercent;
+        return new ComparisonResult(diffPixels, totalPixels, diffPercent,
+                diffPercent > tolerance ? TestRunStatus.UNRESOLVED : TestRunStatus.OK);
+    }
+
+    private static BufferedImage decode(InputStream inputStream) throws IOException {
+        BufferedImage image = ImageIO.read(inputStream);
+        if (image == null) {
+            throw new IOException("Unsupported image format");
+        }
+        return image;
+    }
+
+    private static long countDiffPixels(int[] baseline, int[] image, int width, int height, int[][] areas,
+                                        double maxDelta, int fromRow, int toRow) {
+        long diffPixels = 0;
+        for (int y = fromRow; y < toRow; y++) {
+            for (int x = 0; x < width; x++) {
+                int position = y * width + x;
+                if (baseline[position] == image[position] || isIgnored(areas, x, y)) {
+                    continue;
+                }
+                if (Math.abs(colorDelta(baseline[position], image[position], false)) > maxDelta
+                        && !isAntialiased(baseline, image, x, y, width, height)
+                        && !isAntialiased(image, baseline, x, y, width, height)) {
+                    diffPixels++;
+                }
+            }
+        }
+        return diffPixels;
+    }
+
+    /**
+     * Anti-aliasing detection of pixelmatch: the pixel lies between a darker and a brighter neighbour,
+     * and one of them is inside a flat area in both images.
+     */
+    private static boolean isAntialiased(int[] pixels, int[] otherPixels, int x, int y, int width, int height) {
+        int x0 = Math.max(x - 1, 0);
+        int y0 = Math.max(y - 1, 0);
+        int x2 = Math.min(x + 1, width - 1);
+        int y2 = Math.min(y + 1, height - 1);
+        int pixel = pixels[y * width + x];
+        int zeroes = x == x0 || x == x2 || y == y0 || y == y2 ? 1 : 0;
+        double min = 0;
+        double max = 0;
+        int minX = 0;
+        int minY = 0;
+        int maxX = 0;
+        int maxY = 0;
+        for (int neighbourX = x0; neighbourX <= x2; neighbourX++) {
+            for (int neighbourY = y0; neighbourY <= y2; neighbourY++) {
+                if (neighbourX == x && neighbourY == y) {
+                    continue;
+                }
+                double delta = colorDelta(pixel, pixels[neighbourY * width + neighbourX], true);
+                if (delta == 0) {
+                    zeroes++;
+                    if (zeroes > 2) {
+                        return false;
+                    }
+                } else if (delta < min) {
+                    min = delta;
+                    minX = neighbourX;
+                    minY = neighbourY;
+                } else if (delta > max) {
+                    max = delta;
+                    maxX = neighbourX;
+                    maxY = neighbourY;
+                }
+            }
+        }
+        if (min == 0 || max == 0) {
+            return false;
+        }
+        return (hasManySiblings(pixels, minX, minY, width, height) && hasManySiblings(otherPixels, minX, minY, width, height))
+                || (hasManySiblings(pixels, maxX, maxY, width, height) && hasManySiblings(otherPixels, maxX, maxY, width, height));
+    }
+
+    /**
+     * @return whether more than two neighbours, counting the image border as one, have the same color as the pixel
+     */
+    private static boolean hasManySiblings(int[] pixels, int x, int y, int width, int height) {
+        int x0 = Math.max(x - 1, 0);
+        int y0 = Math.max(y - 1, 0);
+        int x2 = Math.min(x + 1, width - 1);
+        int y2 = Math.min(y + 1, height - 1);
+        int pixel = pixels[y * width + x];
+        int zeroes = x == x0 || x == x2 || y == y0 || y == y2 ? 1 : 0;
+        for (int neighbourX = x0; neighbourX <= x2; neighbourX++) {
+            for (int neighbourY = y0; neighbourY <= y2; neighbourY++) {
+                if (neighbourX == x && neighbourY == y) {
+                    continue;
+                }
+                if (pixels[neighbourY * width + neighbourX] == pixel) {
+                    zeroes++;
+                    if (zeroes > 2) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Squared YIQ distance of two ARGB pixels blended over white, negative if the first one is brighter.
+     *
+     * @param brightnessOnly return only the difference of the Y (brightness) component
+     */
+    private static double colorDelta(int first, int second, boolean brightnessOnly) {
+        if (first == second) {
+            return 0;
+        }
+        double alpha1 = (first >>> 24) / 255.0;
+        double red1 = blend((first >> 16) & 0xFF, alpha1);
+        double green1 = blend((first >> 8) & 0xFF, alpha1);
+        double blue1 = blend(first & 0xFF, alpha1);
+        double alpha2 = (second >>> 24) / 255.0;
+        double red2 = blend((second >> 16) & 0xFF, alpha2);
+        double green2 = blend((second >> 8) & 0xFF, alpha2);
+        double blue2 = blend(second & 0xFF, alpha2);
+
+        double y1 = red1 * 0.29889531 + green1 * 0.58662247 + blue1 * 0.11448223;
+        double y2 = red2 * 0.29889531 + green2 * 0.58662247 + blue2 * 0.11448223;
+        double y = y1 - y2;
+        if (brightnessOnly) {
+            return y;
+        }
+        double i = red1 * 0.59597799 - green1 * 0.27417610 - blue1 * 0.32180189
+                - (red2 * 0.59597799 - green2 * 0.27417610 - blue2 * 0.32180189);
+        double q = red1 * 0.21147017 - green1 * 0.52261711 + blue1 * 0.31114694
+                - (red2 * 0.21147017 - green2 * 0.52261711 + blue2 * 0.31114694);
+        double delta = 0.5053 * y * y + 0.299 * i * i + 0.1957 * q * q;
+        return y1 > y2 ? -delta : delta;
+    }
+
+    private static double blend(int color, double alpha) {
+        return 255 + (color - 255) * alpha;
+    }
+
+    private static boolean isIgnored(int[][] areas, int x, int y) {
+        for (int[] area : areas) {
+            if (x >= area[0] && x < area[2] && y >= area[1] && y < area[3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return areas as {@code [left, top, right, bottom]}, clipped to the image
+     */
+    private static int[][] toAreas(List<IgnoreAreas> ignoreAreas, int width, int height) {
+        return ignoreAreas.stream()
+                .map(area -> new int[]{
+                        clip(area.getX(), width),
+                        clip(area.getY(), height),
+                        clip(area.getX() + area.getWidth(), width),
+                        clip(area.getY() + area.getHeight(), height)})
+                .toArray(int[][]::new);
+    }
+
+    private static int clip(long value, int max) {
+        return (int) Math.max(0, Math.min(value, max));
+    }
+}
@@ -0,0 +1,101 @@
+package io.visual_regression_tracker.sdk_java.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the executors used by the SDK according to {@link ThreadMode}.
+ * Virtual threads are looked up reflectively, so the SDK still compiles and runs on Java 11.
+ */
+@Slf4j
+public class ExecutorFactory {
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method BUILDER_NAME = findMethod(findClass("java.lang.Thread$Builder"), "name", String.class, long.class);
+    private static final Method BUILDER_FACTORY = findMethod(findClass("java.lang.Thread$Builder"), "factory");
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR = findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private ExecutorFactory() {
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null && BUILDER_NAME != null && BUILDER_FACTORY != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    public static boolean usesVirtualThreads(ThreadMode threadMode) {
+        switch (threadMode) {
+            case VIRTUAL:
+                if (!isVirtualThreadSupported()) {
+                    throw new IllegalStateException("Virtual threads require Java 21 or newer, current version is "
+                            + System.getProperty("java.version"));
+                }
+                return true;
+            case AUTO:
+                return isVirtualThreadSupported();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param name             prefix of thread names
+     * @param platformThreads  pool size if platform threads are used; virtual threads are created per task
+     */
+    public static ExecutorService newExecutor(ThreadMode threadMode, String name, int platformThreads) {
+        if (usesVirtualThreads(threadMode)) {
+            return newVirtualThreadPerTaskExecutor(name);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(platformThreads, platformThreads,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Unbounded executor for tasks that mostly wait on I/O.
+     */
+    public static ExecutorService newCachedExecutor(ThreadMode threadMode, String name) {
+        if (usesVirtualThreads(threadMode)) {
+            return newVirtualThreadPerTaskExecutor(name);
+        }
+        return Executors.newCachedThreadPool(new NamedThreadFactory(name));
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, name + "-", 1L);
+            ThreadFactory threadFactory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Can't create virtual thread executor", e);
+        }
+    }
+
+    private static Class<?> findClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(Class<?> cls, String name, Class<?>... parameterTypes) {
+        if (cls == null) {
+            return null;
+        }
+        try {
+            return cls.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package io.visual_regression_tracker.sdk_java.concurrent;
+
+public enum ThreadMode {
+    /**
+     * Virtual threads when the runtime supports them (Java 21+), platform threads otherwise
+     */
+    AUTO,
+    PLATFORM,
+    /**
+     * Virtual threads, fails on runtimes without them
+     */
+    VIRTUAL
+}
@@ -0,0 +1,67 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import java.time.Duration;
+
+/**
+ * Request timeout derived from the payload size and running estimates of the server latency and the time per byte.
+ * An exchange is modelled as latency plus time per byte, where the latter covers the upload as well as the comparison,
+ * both growing with the image. Small requests feed the latency estimate, larger ones the time per byte.
+ * The write and the response budget get {@code SAFETY_FACTOR} times their estimate, but at least their minimum.
+ * Until the estimate needed for a request is known, or if its size is unknown, the fallback timeout is used.
+ */
+public class AdaptiveTimeout {
+
+    private static final double SAFETY_FACTOR = 4;
+    // weight of the newest sample in the moving averages
+    private static final double SMOOTHING = 0.2;
+    // requests up to this size hardly take any upload time
+    static final long SMALL_REQUEST_BYTES = 16 * 1024;
+
+    private final Duration fallback;
+    private final Duration minWrite;
+    private final Duration minResponse;
+    private double latencyNanos = Double.NaN;
+    private double nanosPerByte = Double.NaN;
+
+    public AdaptiveTimeout(Duration fallback, Duration minWrite, Duration minResponse) {
+        this.fallback = fallback;
+        this.minWrite = minWrite;
+        this.minResponse = minResponse;
+    }
+
+    /**
+     * @param requestBytes size of the request body, -1 if unknown
+     */
+    public synchronized Duration timeout(long requestBytes) {
+        boolean small = requestBytes >= 0 && requestBytes <= SMALL_REQUEST_BYTES;
+        if (requestBytes < 0 || (small ? Double.isNaN(latencyNanos) : Double.isNaN(nanosPerByte))) {
+            return fallback;
+        }
+        double write = small || Double.isNaN(nanosPerByte) ? 0 : SAFETY_FACTOR * nanosPerByte * requestBytes;
+        double response = Double.isNaN(latencyNanos) ? 0 : SAFETY_FACTOR * latencyNanos;
+        return Duration.ofNanos(Math.max(minWrite.toNanos(), (long) write)
+                + Math.max(minResponse.toNanos(), (long) response));
+    }
+
+    /**
+     * Records a completed exchange. A timed out one is recorded as well, so the estimates grow with a slowing server.
+     */
+    public synchronized void record(long requestBytes, Duration elapsed) {
+        if (requestBytes < 0) {
+            return;
+        }
+        double nanos = elapsed.toNanos();
+        if (requestBytes <= SMALL_REQUEST_BYTES) {
+            latencyNanos = average(latencyNanos, nanos);
+            return;
+        }
+        double perByte = (nanos - (Double.isNaN(latencyNanos) ? 0 : latencyNanos)) / requestBytes;
+        if (perByte > 0) {
+            nanosPerByte = average(nanosPerByte, perByte);
+        }
+    }
+
+    private static double average(double average, double sample) {
+        return Double.isNaN(average) ? sample : average + SMOOTHING * (sample - average);
+    }
+}
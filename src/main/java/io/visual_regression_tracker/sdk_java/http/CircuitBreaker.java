@@ -0,0 +1,74 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import io.visual_regression_tracker.sdk_java.TestRunException;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Fails requests fast once the server looks down. Opens after {@code failureThreshold} consecutive failures,
+ * and lets a single probe request through once {@code openDuration} has passed.
+ * A threshold of 0 disables the breaker.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean open;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * @throws TestRunException if the breaker is open
+     */
+    public synchronized void beforeRequest() {
+        if (failureThreshold <= 0 || !open) {
+            return;
+        }
+        long retryAt = openedAt + openDuration.toMillis();
+        if (clock.millis() < retryAt || probeInFlight) {
+            throw new TestRunException("Circuit breaker is open after " + consecutiveFailures
+                    + " consecutive failures, requests are rejected for " + openDuration.getSeconds() + " seconds");
+        }
+        probeInFlight = true;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (failureThreshold > 0 && (probeInFlight || consecutiveFailures >= failureThreshold)) {
+            open = true;
+            openedAt = clock.millis();
+            probeInFlight = false;
+        }
+    }
+
+    /**
+     * Ends an attempt that got no answer for reasons unrelated to the server, e.g. an interrupt or a closed client.
+     * Counts neither as success nor as failure, but lets the next probe through.
+     */
+    public synchronized void onAbort() {
+        probeInFlight = false;
+    }
+
+    public synchronized boolean isOpen() {
+        return open;
+    }
+}
@@ -0,0 +1,280 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of requests in flight, and so the number of connections, for all requests of a tracker.
+ * An adaptive limiter follows AIMD: the limit grows by one per window of successful requests while latency stays
+ * within {@value #LATENCY_TOLERANCE} times the observed baseline, shrinks slightly when latency grows beyond that,
+ * and is halved on 429, 503 and timeouts. A {@code Retry-After} header holds back new requests for the given time.
+ * Latency grows with the request size, so requests are compared only with requests of similar size:
+ * there is a baseline for small requests and one per doubling of the size above.
+ * A fixed limiter never changes its limit.
+ * Waiting callers park on a lock condition rather than a monitor, so virtual threads unmount while they wait.
+ */
+@Slf4j
+public class ConcurrencyLimiter {
+
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double LATENCY_DECREASE = 0.9;
+    private static final double DROP_DECREASE = 0.5;
+    private static final double BASELINE_SMOOTHING = 0.05;
+
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    // by size class, see sizeClass
+    private final Map<Integer, Double> baselineLatencyMillis = new HashMap<>();
+    private long pausedUntil;
+    private boolean drainScheduled;
+
+    ConcurrencyLimiter(boolean adaptive, int initialLimit, int minLimit, int maxLimit, Clock clock) {
+        this.adaptive = adaptive;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.clock = clock;
+    }
+
+    public static ConcurrencyLimiter adaptive(int initialLimit, int maxLimit) {
+        return new ConcurrencyLimiter(true, initialLimit, 1, maxLimit, Clock.systemUTC());
+    }
+
+    public static ConcurrencyLimiter fixed(int limit) {
+        return new ConcurrencyLimiter(false, limit, limit, limit, Clock.systemUTC());
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param requestBytes size of the request body, -1 if unknown
+     */
+    public <T> HttpResponse<T> execute(long requestBytes, Retrier.HttpCall<T> call) throws IOException, InterruptedException {
+        acquire();
+        long start = System.nanoTime();
+        HttpResponse<T> response;
+        try {
+            response = call.send();
+        } catch (HttpTimeoutException e) {
+            onDrop(Optional.empty());
+            throw e;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            onIgnore();
+            throw e;
+        }
+        onResponse(response, requestBytes, Duration.ofNanos(System.nanoTime() - start));
+        return response;
+    }
+
+    public <T> CompletableFuture<HttpResponse<T>> executeAsync(long requestBytes,
+                                                               Supplier<CompletableFuture<HttpResponse<T>>> call) {
+        return acquireAsync().thenCompose(ignored -> {
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<T>> response;
+            try {
+                response = call.get();
+            } catch (RuntimeException e) {
+                onIgnore();
+                throw e;
+            }
+            return response.whenComplete((httpResponse, throwable) -> {
+                Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                if (cause instanceof HttpTimeoutException) {
+                    onDrop(Optional.empty());
+                } else if (cause != null) {
+                    onIgnore();
+                } else {
+                    onResponse(httpResponse, requestBytes, Duration.ofNanos(System.nanoTime() - start));
+                }
+            });
+        });
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long pause = pausedUntil - clock.millis();
+                if (pause > 0) {
+                    changed.await(pause, TimeUnit.MILLISECONDS);
+                } else if (inFlight < (int) limit && waiters.isEmpty()) {
+                    inFlight++;
+                    return;
+                } else {
+                    changed.await();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CompletableFuture<Void> acquireAsync() {
+        lock.lock();
+        try {
+            if (pausedUntil <= clock.millis() && inFlight < (int) limit && waiters.isEmpty()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            scheduleDrainAfterPause();
+            return waiter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void onResponse(HttpResponse<?> response, long requestBytes, Duration latency) {
+        if (response.statusCode() == 429 || response.statusCode() == 503) {
+            onDrop(Retrier.retryAfter(response));
+        } else {
+            onSuccess(requestBytes, latency);
+        }
+    }
+
+    void onSuccess(long requestBytes, Duration latency) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (adaptive) {
+                double latencyMillis = Math.max(1, latency.toMillis());
+                Double previousBaseline = baselineLatencyMillis.get(sizeClass(requestBytes));
+                // let the baseline follow slow drifts of the server
+                double baseline = previousBaseline == null || latencyMillis < previousBaseline
+                        ? latencyMillis
+                        : previousBaseline + (latencyMillis - previousBaseline) * BASELINE_SMOOTHING;
+                baselineLatencyMillis.put(sizeClass(requestBytes), baseline);
+                if (latencyMillis > baseline * LATENCY_TOLERANCE) {
+                    setLimit(limit * LATENCY_DECREASE);
+                } else {
+                    setLimit(limit + 1 / limit);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    void onDrop(Optional<Duration> retryAfter) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (adaptive) {
+                setLimit(limit * DROP_DECREASE);
+                retryAfter.ifPresent(pause -> pausedUntil = Math.max(pausedUntil, clock.millis() + pause.toMillis()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    void onIgnore() {
+        lock.lock();
+        try {
+            inFlight--;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    /**
+     * @return -1 for an unknown size, 0 for small requests, otherwise 1 plus the number of doublings above them
+     */
+    private static int sizeClass(long requestBytes) {
+        if (requestBytes < 0) {
+            return -1;
+        }
+        return requestBytes <= AdaptiveTimeout.SMALL_REQUEST_BYTES
+                ? 0
+                : 64 - Long.numberOfLeadingZeros(requestBytes / AdaptiveTimeout.SMALL_REQUEST_BYTES);
+    }
+
+    private void setLimit(double newLimit) {
+        int previous = (int) limit;
+        limit = Math.min(maxLimit, Math.max(minLimit, newLimit));
+        if ((int) limit != previous) {
+            log.debug("Concurrency limit changed from {} to {}", previous, (int) limit);
+        }
+    }
+
+    private void drain() {
+        List<CompletableFuture<Void>> admitted = new ArrayList<>();
+        lock.lock();
+        try {
+            if (pausedUntil > clock.millis()) {
+                scheduleDrainAfterPause();
+            } else {
+                while (inFlight < (int) limit && !waiters.isEmpty()) {
+                    inFlight++;
+                    admitted.add(waiters.poll());
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        admitted.forEach(waiter -> waiter.complete(null));
+    }
+
+    private void scheduleDrainAfterPause() {
+        long pause = pausedUntil - clock.millis();
+        if (pause <= 0 || drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        CompletableFuture.delayedExecutor(pause, TimeUnit.MILLISECONDS).execute(() -> {
+            lock.lock();
+            try {
+                drainScheduled = false;
+            } finally {
+                lock.unlock();
+            }
+            drain();
+        });
+    }
+}
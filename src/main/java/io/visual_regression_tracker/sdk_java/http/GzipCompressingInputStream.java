@@ -0,0 +1,135 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip compresses the wrapped stream on the fly, so a compressed request body is never held in memory as a whole.
+ */
+class GzipCompressingInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int TRAILER_SIZE = 8;
+
+    private enum State { HEADER, DATA, TRAILER, DONE }
+
+    private final InputStream source;
+    private final LongConsumer onFinished;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] input = new byte[BUFFER_SIZE];
+    private final byte[] output = new byte[BUFFER_SIZE];
+    private State state = State.HEADER;
+    private int outputPosition;
+    private int outputLength;
+    private long uncompressedLength;
+    private long compressedLength;
+
+    /**
+     * @param onFinished receives the compressed length once the stream is read to the end
+     */
+    GzipCompressingInputStream(InputStream source, int level, LongConsumer onFinished) {
+        this.source = source;
+        this.onFinished = onFinished;
+        this.deflater = new Deflater(level, true);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return output[outputPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, outputLength - outputPosition);
+        System.arraycopy(output, outputPosition, buffer, offset, count);
+        outputPosition += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        source.close();
+    }
+
+    private boolean fill() throws IOException {
+        if (outputPosition < outputLength) {
+            return true;
+        }
+        switch (state) {
+            case HEADER:
+                System.arraycopy(HEADER, 0, output, 0, HEADER.length);
+                produced(HEADER.length);
+                state = State.DATA;
+                return true;
+            case DATA:
+                if (deflate()) {
+                    return true;
+                }
+                writeTrailer();
+                state = State.TRAILER;
+                return true;
+            case TRAILER:
+                state = State.DONE;
+                deflater.end();
+                onFinished.accept(compressedLength);
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    private boolean deflate() throws IOException {
+        while (!deflater.finished()) {
+            if (deflater.needsInput()) {
+                int read = source.read(input);
+                if (read == -1) {
+                    deflater.finish();
+                } else if (read > 0) {
+                    crc.update(input, 0, read);
+                    uncompressedLength += read;
+                    deflater.setInput(input, 0, read);
+                }
+            }
+            int deflated = deflater.deflate(output, 0, output.length);
+            if (deflated > 0) {
+                produced(deflated);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeTrailer() {
+        writeIntLittleEndian(0, crc.getValue());
+        writeIntLittleEndian(4, uncompressedLength);
+        produced(TRAILER_SIZE);
+    }
+
+    private void writeIntLittleEndian(int offset, long value) {
+        output[offset] = (byte) value;
+        output[offset + 1] = (byte) (value >> 8);
+        output[offset + 2] = (byte) (value >> 16);
+        output[offset + 3] = (byte) (value >> 24);
+    }
+
+    private void produced(int length) {
+        outputPosition = 0;
+        outputLength = length;
+        compressedLength += length;
+    }
+}
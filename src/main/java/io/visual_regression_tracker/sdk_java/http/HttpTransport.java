@@ -0,0 +1,21 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends HTTP requests on behalf of the tracker. One transport lives as long as its tracker,
+ * so implementations are expected to keep connections alive between calls.
+ */
+public interface HttpTransport extends AutoCloseable {
+
+    <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException;
+
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler);
+
+    @Override
+    void close();
+}
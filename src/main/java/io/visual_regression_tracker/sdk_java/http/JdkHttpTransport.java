@@ -0,0 +1,68 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import io.visual_regression_tracker.sdk_java.VisualRegressionTrackerConfig;
+import io.visual_regression_tracker.sdk_java.concurrent.ExecutorFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * {@link HttpTransport} backed by a single long-lived {@link HttpClient}.
+ * The client pools keep-alive connections itself. It does not cap concurrent exchanges, the tracker's
+ * {@link ConcurrencyLimiter} keeps them, and therefore open connections, within {@code maxConnections}.
+ */
+@Slf4j
+public class JdkHttpTransport implements HttpTransport {
+
+    private static final String TRANSPORT_CLOSED = "HTTP transport is closed";
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private volatile boolean closed;
+
+    public JdkHttpTransport(VisualRegressionTrackerConfig configuration) {
+        executor = ExecutorFactory.newCachedExecutor(configuration.getThreadMode(), "vrt-http");
+        httpClient = HttpClient.newBuilder()
+                .version(configuration.getEnableHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(configuration.getConnectTimeoutInMillis() != null
+                        ? Duration.ofMillis(configuration.getConnectTimeoutInMillis())
+                        : Duration.ofSeconds(configuration.getHttpTimeoutInSeconds()))
+                .executor(executor)
+                .build();
+        log.debug("HTTP transport created: version <{}>", httpClient.version());
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler)
+            throws IOException, InterruptedException {
+        ensureOpen();
+        return httpClient.send(request, responseBodyHandler);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        ensureOpen();
+        return httpClient.sendAsync(request, responseBodyHandler);
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            executor.shutdown();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException(TRANSPORT_CLOSED);
+        }
+    }
+}
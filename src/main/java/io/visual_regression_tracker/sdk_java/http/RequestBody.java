@@ -0,0 +1,93 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Request payload that can be streamed more than once, so large bodies are never held in memory as a whole.
+ */
+@Getter
+public class RequestBody {
+
+    public static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+    public static final String GZIP_ENCODING = "gzip";
+
+    private final String contentType;
+    /**
+     * -1 if not known up front, then the body is sent chunked
+     */
+    private final long contentLength;
+    /**
+     * {@code null} for an uncompressed body
+     */
+    private final String contentEncoding;
+    private final Supplier<InputStream> content;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong streamedLength;
+    @Getter(AccessLevel.NONE)
+    private final long uncompressedLength;
+
+    public RequestBody(String contentType, long contentLength, Supplier<InputStream> content) {
+        this(contentType, contentLength, null, content, new AtomicLong(-1), contentLength);
+    }
+
+    private RequestBody(String contentType, long contentLength, String contentEncoding,
+                        Supplier<InputStream> content, AtomicLong streamedLength, long uncompressedLength) {
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.contentEncoding = contentEncoding;
+        this.content = content;
+        this.streamedLength = streamedLength;
+        this.uncompressedLength = uncompressedLength;
+    }
+
+    public static RequestBody ofJson(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return new RequestBody(JSON_CONTENT_TYPE, bytes.length, () -> new ByteArrayInputStream(bytes));
+    }
+
+    public InputStream openStream() {
+        return content.get();
+    }
+
+    /**
+     * Same body gzip compressed while it is streamed. The compressed length is only known once it was sent.
+     */
+    public RequestBody gzip(int level) {
+        AtomicLong compressedLength = new AtomicLong(-1);
+        return new RequestBody(contentType, -1, GZIP_ENCODING,
+                () -> new GzipCompressingInputStream(openStream(), level, compressedLength::set), compressedLength,
+                getExpectedLength());
+    }
+
+    /**
+     * @return bytes sent over the wire by the last completed transfer, or the content length if it is known up front
+     */
+    public long getTransferredLength() {
+        return contentLength >= 0 ? contentLength : streamedLength.get();
+    }
+
+    /**
+     * @return bytes to be sent, for a compressed body its length before compression as an upper bound, or -1 if unknown
+     */
+    public long getExpectedLength() {
+        return contentLength >= 0 ? contentLength : uncompressedLength;
+    }
+
+    public HttpRequest.BodyPublisher toBodyPublisher() {
+        if (contentLength == 0) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        if (contentLength < 0) {
+            return HttpRequest.BodyPublishers.ofInputStream(content);
+        }
+        return HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(content), contentLength);
+    }
+}
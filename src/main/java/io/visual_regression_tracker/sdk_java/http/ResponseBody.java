@@ -0,0 +1,157 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Response payload kept as the buffers received from the connection, so it can be parsed
+ * as a stream without first being copied into a byte array or decoded into a String.
+ * Gzip encoded responses are decompressed while they are read.
+ */
+public class ResponseBody {
+
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+    private final List<ByteBuffer> buffers;
+    private final long length;
+    private final boolean gzipped;
+
+    private ResponseBody(List<ByteBuffer> buffers, boolean gzipped) {
+        this.buffers = buffers;
+        this.length = buffers.stream().mapToLong(ByteBuffer::remaining).sum();
+        this.gzipped = gzipped;
+    }
+
+    public static ResponseBody of(String content) {
+        return new ResponseBody(Collections.singletonList(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8))), false);
+    }
+
+    /**
+     * Completes once the whole body is received, so the connection is free again before parsing starts.
+     */
+    public static HttpResponse.BodyHandler<ResponseBody> handler() {
+        return responseInfo -> new BufferingSubscriber(responseInfo.headers().firstValue(CONTENT_ENCODING_HEADER)
+                .map(RequestBody.GZIP_ENCODING::equalsIgnoreCase)
+                .orElse(false));
+    }
+
+    /**
+     * @return bytes received over the wire
+     */
+    public long length() {
+        return length;
+    }
+
+    public InputStream openStream() {
+        InputStream stream = new BuffersInputStream(buffers);
+        if (!gzipped || length == 0) {
+            return stream;
+        }
+        try {
+            return new GZIPInputStream(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid gzip response", e);
+        }
+    }
+
+    public String asString() {
+        try (InputStream stream = openStream()) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid gzip response", e);
+        }
+    }
+
+    private static class BufferingSubscriber implements HttpResponse.BodySubscriber<ResponseBody> {
+
+        private final CompletableFuture<ResponseBody> body = new CompletableFuture<>();
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+        private final boolean gzipped;
+
+        private BufferingSubscriber(boolean gzipped) {
+            this.gzipped = gzipped;
+        }
+
+        @Override
+        public CompletionStage<ResponseBody> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            buffers.addAll(items);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(new ResponseBody(buffers, gzipped));
+        }
+    }
+
+    private static class BuffersInputStream extends InputStream {
+
+        private final List<ByteBuffer> buffers;
+        private int index;
+        private ByteBuffer current;
+
+        private BuffersInputStream(List<ByteBuffer> buffers) {
+            this.buffers = buffers;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer buffer = nextBuffer();
+            return buffer == null ? -1 : buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            ByteBuffer buffer = nextBuffer();
+            if (buffer == null) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return current == null ? 0 : current.remaining();
+        }
+
+        private ByteBuffer nextBuffer() {
+            while (current == null || !current.hasRemaining()) {
+                if (index == buffers.size()) {
+                    return null;
+                }
+                current = buffers.get(index++).duplicate();
+            }
+            return current;
+        }
+    }
+}
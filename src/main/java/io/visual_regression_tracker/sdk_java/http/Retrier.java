@@ -0,0 +1,162 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import io.visual_regression_tracker.sdk_java.jfr.RetryEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs HTTP calls according to a {@link RetryPolicy}, guarded by a shared {@link CircuitBreaker}.
+ * Connection failures, 5xx and 429 responses count as failures for the breaker,
+ * other exceptions like interrupts only end the attempt.
+ */
+@Slf4j
+public class Retrier {
+
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private final CircuitBreaker circuitBreaker;
+
+    public Retrier(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public <T> HttpResponse<T> execute(RetryPolicy policy, HttpCall<T> call) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            circuitBreaker.beforeRequest();
+            HttpResponse<T> response;
+            try {
+                response = call.send();
+            } catch (IOException e) {
+                circuitBreaker.onFailure();
+                if (!policy.hasAttemptsLeft(attempt) || !policy.isRetryable(e)) {
+                    throw e;
+                }
+                Duration backoff = policy.backoff(attempt);
+                log.warn("Request failed with <{}>, retrying in {} ms (attempt {} of {})",
+                        e.toString(), backoff.toMillis(), attempt + 1, policy.getMaxAttempts());
+                recordRetry(attempt, e.toString(), backoff);
+                Thread.sleep(backoff.toMillis());
+                continue;
+            } catch (InterruptedException | RuntimeException e) {
+                circuitBreaker.onAbort();
+                throw e;
+            }
+            if (!isFailure(response)) {
+                circuitBreaker.onSuccess();
+                return response;
+            }
+            circuitBreaker.onFailure();
+            if (!policy.hasAttemptsLeft(attempt) || !policy.isRetryable(response.statusCode())) {
+                return response;
+            }
+            Duration backoff = backoff(policy, attempt, response);
+            log.warn("Request failed with status <{}>, retrying in {} ms (attempt {} of {})",
+                    response.statusCode(), backoff.toMillis(), attempt + 1, policy.getMaxAttempts());
+            recordRetry(attempt, "status " + response.statusCode(), backoff);
+            Thread.sleep(backoff.toMillis());
+        }
+    }
+
+    public <T> CompletableFuture<HttpResponse<T>> executeAsync(RetryPolicy policy,
+                                                               Supplier<CompletableFuture<HttpResponse<T>>> call) {
+        return attemptAsync(policy, call, 1);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> attemptAsync(RetryPolicy policy,
+                                                                Supplier<CompletableFuture<HttpResponse<T>>> call,
+                                                                int attempt) {
+        try {
+            circuitBreaker.beforeRequest();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<HttpResponse<T>> attemptFuture;
+        try {
+            attemptFuture = call.get();
+        } catch (RuntimeException e) {
+            circuitBreaker.onAbort();
+            return CompletableFuture.failedFuture(e);
+        }
+        return attemptFuture.handle((response, throwable) -> {
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            Duration backoff;
+            if (cause != null && !(cause instanceof IOException)) {
+                circuitBreaker.onAbort();
+                return CompletableFuture.<HttpResponse<T>>failedFuture(cause);
+            }
+            if (cause != null) {
+                circuitBreaker.onFailure();
+                if (!policy.hasAttemptsLeft(attempt) || !policy.isRetryable((IOException) cause)) {
+                    return CompletableFuture.<HttpResponse<T>>failedFuture(cause);
+                }
+                backoff = policy.backoff(attempt);
+                log.warn("Request failed with <{}>, retrying in {} ms (attempt {} of {})",
+                        cause.toString(), backoff.toMillis(), attempt + 1, policy.getMaxAttempts());
+                recordRetry(attempt, cause.toString(), backoff);
+            } else if (!isFailure(response)) {
+                circuitBreaker.onSuccess();
+                return CompletableFuture.completedFuture(response);
+            } else {
+                circuitBreaker.onFailure();
+                if (!policy.hasAttemptsLeft(attempt) || !policy.isRetryable(response.statusCode())) {
+                    return CompletableFuture.completedFuture(response);
+                }
+                backoff = backoff(policy, attempt, response);
+                log.warn("Request failed with status <{}>, retrying in {} ms (attempt {} of {})",
+                        response.statusCode(), backoff.toMillis(), attempt + 1, policy.getMaxAttempts());
+                recordRetry(attempt, "status " + response.statusCode(), backoff);
+            }
+            return CompletableFuture.runAsync(() -> { },
+                            CompletableFuture.delayedExecutor(backoff.toMillis(), TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> attemptAsync(policy, call, attempt + 1));
+        }).thenCompose(future -> future);
+    }
+
+    private static boolean isFailure(HttpResponse<?> response) {
+        return response.statusCode() >= 500 || response.statusCode() == 429;
+    }
+
+    private static void recordRetry(int attempt, String failure, Duration backoff) {
+        RetryEvent event = new RetryEvent();
+        if (event.isEnabled()) {
+            event.setAttempt(attempt);
+            event.setFailure(failure);
+            event.setBackoff(backoff.toMillis());
+            event.commit();
+        }
+    }
+
+    /**
+     * Honors {@code Retry-After} given in seconds when the server sends it.
+     */
+    private static Duration backoff(RetryPolicy policy, int attempt, HttpResponse<?> response) {
+        return retryAfter(response)
+                .map(retryAfter -> retryAfter.compareTo(policy.getMaxBackoff()) > 0 ? policy.getMaxBackoff() : retryAfter)
+                .orElseGet(() -> policy.backoff(attempt));
+    }
+
+    static Optional<Duration> retryAfter(HttpResponse<?> response) {
+        return response.headers().firstValue(RETRY_AFTER_HEADER).flatMap(Retrier::parseSeconds);
+    }
+
+    private static Optional<Duration> parseSeconds(String value) {
+        try {
+            return Optional.of(Duration.ofSeconds(Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    @FunctionalInterface
+    public interface HttpCall<T> {
+        HttpResponse<T> send() throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,62 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a failed request is retried and how long to wait before the next attempt.
+ * Requests that were refused before reaching the server are always safe to retry, anything else only if the
+ * request is idempotent.
+ */
+@Getter
+public class RetryPolicy {
+
+    // server refused the request without processing it
+    private static final Set<Integer> REFUSED_STATUSES = Set.of(429, 503);
+    // gateway failed, but the request may have been processed
+    private static final Set<Integer> GATEWAY_STATUSES = Set.of(502, 504);
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final boolean idempotent;
+
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, boolean idempotent) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.idempotent = idempotent;
+    }
+
+    public boolean isRetryable(int statusCode) {
+        return REFUSED_STATUSES.contains(statusCode) || (idempotent && GATEWAY_STATUSES.contains(statusCode));
+    }
+
+    public boolean isRetryable(IOException exception) {
+        return exception instanceof ConnectException
+                || exception instanceof HttpConnectTimeoutException
+                || idempotent;
+    }
+
+    public boolean hasAttemptsLeft(int attempt) {
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": a random delay between half and the full exponential value.
+     *
+     * @param attempt number of the attempt that just failed, starting from 1
+     */
+    public Duration backoff(int attempt) {
+        long exponential = initialBackoff.toMillis() << Math.min(attempt - 1, 30);
+        long capped = Math.min(Math.max(exponential, 0), maxBackoff.toMillis());
+        long half = capped / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(capped - half + 1));
+    }
+}
@@ -0,0 +1,74 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Base64 encodes the wrapped stream on the fly. Only one fixed-size chunk is held in memory at a time.
+ */
+class Base64EncodingInputStream extends InputStream {
+
+    // multiple of 3, so only the last chunk can produce padding
+    private static final int CHUNK_SIZE = 3 * 16 * 1024;
+
+    private final InputStream source;
+    private final Base64.Encoder encoder = Base64.getEncoder();
+    private final byte[] rawChunk = new byte[CHUNK_SIZE];
+    private final byte[] encodedChunk = new byte[CHUNK_SIZE / 3 * 4];
+    private int encodedLength;
+    private int position;
+    private boolean finished;
+
+    Base64EncodingInputStream(InputStream source) {
+        this.source = source;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return encodedChunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, encodedLength - position);
+        System.arraycopy(encodedChunk, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private boolean fill() throws IOException {
+        if (position < encodedLength) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        int read = source.readNBytes(rawChunk, 0, CHUNK_SIZE);
+        if (read < CHUNK_SIZE) {
+            finished = true;
+        }
+        if (read == 0) {
+            return false;
+        }
+        byte[] raw = read == CHUNK_SIZE ? rawChunk : Arrays.copyOf(rawChunk, read);
+        encodedLength = encoder.encode(raw, encodedChunk);
+        position = 0;
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import java.io.InputStream;
+import java.util.Base64;
+
+class Base64StringImageSource implements ImageSource {
+
+    private final String imageBase64;
+
+    Base64StringImageSource(String imageBase64) {
+        this.imageBase64 = imageBase64;
+    }
+
+    @Override
+    public long length() {
+        int length = imageBase64.length();
+        int padding = 0;
+        while (padding < 2 && length - padding > 0 && imageBase64.charAt(length - padding - 1) == '=') {
+            padding++;
+        }
+        return (long) length * 3 / 4 - padding;
+    }
+
+    @Override
+    public InputStream openStream() {
+        return Base64.getDecoder().wrap(openBase64Stream());
+    }
+
+    @Override
+    public long base64Length() {
+        return imageBase64.length();
+    }
+
+    @Override
+    public InputStream openBase64Stream() {
+        return new AsciiStringInputStream(imageBase64);
+    }
+
+    /**
+     * Reads base64 characters straight from the String instead of copying it into a byte array.
+     */
+    private static class AsciiStringInputStream extends InputStream {
+
+        private final String value;
+        private int position;
+
+        private AsciiStringInputStream(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int read() {
+            return position < value.length() ? value.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int count = Math.min(length, value.length() - position);
+            if (count <= 0) {
+                return -1;
+            }
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) value.charAt(position + i);
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return value.length() - position;
+        }
+    }
+}
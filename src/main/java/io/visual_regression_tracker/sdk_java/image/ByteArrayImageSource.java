@@ -0,0 +1,33 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+class ByteArrayImageSource implements ImageSource {
+
+    private final byte[] image;
+
+    ByteArrayImageSource(byte[] image) {
+        this.image = image;
+    }
+
+    @Override
+    public long length() {
+        return image.length;
+    }
+
+    @Override
+    public InputStream openStream() {
+        return new ByteArrayInputStream(image);
+    }
+
+    @Override
+    public long base64Length() {
+        return ImageSource.base64Length(image.length);
+    }
+
+    @Override
+    public InputStream openBase64Stream() {
+        return new Base64EncodingInputStream(openStream());
+    }
+}
@@ -0,0 +1,47 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Image file too large to be kept on the heap. Every stream reads it from disk and holds the file open only
+ * until it is closed, so the file can be deleted or overwritten between uploads, also on Windows.
+ * The file must not change while the image is uploaded.
+ */
+class FileImageSource implements ImageSource {
+
+    private final Path path;
+    private final long length;
+
+    FileImageSource(Path path, long length) {
+        this.path = path;
+        this.length = length;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public InputStream openStream() {
+        try {
+            return Files.newInputStream(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read image " + path, e);
+        }
+    }
+
+    @Override
+    public long base64Length() {
+        return ImageSource.base64Length(length);
+    }
+
+    @Override
+    public InputStream openBase64Stream() {
+        return new Base64EncodingInputStream(openStream());
+    }
+}
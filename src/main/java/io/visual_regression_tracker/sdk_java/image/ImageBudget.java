@@ -0,0 +1,75 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import io.visual_regression_tracker.sdk_java.TestRunException;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bytes of images held by test runs queued or in flight. Above {@code maxBytes} new images either wait for
+ * capacity or are rejected. An image is always admitted while no other one is held, so a single image larger
+ * than the budget still goes through. A budget of 0 or less only counts.
+ * Waiting callers park on a lock condition rather than a monitor, so virtual threads unmount while they wait.
+ */
+public class ImageBudget {
+
+    private final long maxBytes;
+    private final boolean reject;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private long usedBytes;
+    private long peakBytes;
+
+    public ImageBudget(long maxBytes, boolean reject) {
+        this.maxBytes = maxBytes;
+        this.reject = reject;
+    }
+
+    /**
+     * @throws TestRunException if the budget is exceeded and rejection is enabled
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (maxBytes > 0 && usedBytes > 0 && usedBytes + bytes > maxBytes) {
+                if (reject) {
+                    throw new TestRunException("Image of " + bytes + " bytes exceeds the image budget of " + maxBytes
+                            + " bytes, " + usedBytes + " bytes are in flight");
+                }
+                released.await();
+            }
+            usedBytes += bytes;
+            peakBytes = Math.max(peakBytes, usedBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long bytes) {
+        lock.lock();
+        try {
+            usedBytes -= bytes;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getUsedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPeakBytes() {
+        lock.lock();
+        try {
+            return peakBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
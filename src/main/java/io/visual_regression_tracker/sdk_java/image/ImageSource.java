@@ -0,0 +1,70 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Screenshot to be uploaded. Sources are read lazily and can be opened repeatedly,
+ * so the base64 form of an image never has to exist as a single String.
+ */
+public interface ImageSource {
+
+    /**
+     * Files up to this size are read onto the heap by {@link #ofPath(Path)}.
+     */
+    int IN_MEMORY_MAX_BYTES = 1024 * 1024;
+
+    /**
+     * @return size of the image in bytes
+     */
+    long length();
+
+    /**
+     * @return new stream with the raw image bytes
+     */
+    InputStream openStream();
+
+    /**
+     * @return number of bytes produced by {@link #openBase64Stream()}
+     */
+    long base64Length();
+
+    /**
+     * @return new stream with the base64 encoded image
+     */
+    InputStream openBase64Stream();
+
+    static ImageSource ofBase64(String imageBase64) {
+        return new Base64StringImageSource(imageBase64);
+    }
+
+    static ImageSource ofBytes(byte[] image) {
+        return new ByteArrayImageSource(image);
+    }
+
+    /**
+     * Reads files up to {@value #IN_MEMORY_MAX_BYTES} bytes right away. Larger files are streamed from disk
+     * and base64 encoded chunk by chunk while uploading, so they must not change until then.
+     * No file handle is held in between, so the file can be deleted or overwritten afterwards.
+     */
+    static ImageSource ofPath(Path image) throws IOException {
+        long length = Files.size(image);
+        if (length <= IN_MEMORY_MAX_BYTES) {
+            return new ByteArrayImageSource(Files.readAllBytes(image));
+        }
+        return new FileImageSource(image, length);
+    }
+
+    /**
+     * Reads the stream once, keeping the raw image bytes. The stream is not closed.
+     */
+    static ImageSource ofStream(InputStream image) throws IOException {
+        return new ByteArrayImageSource(image.readAllBytes());
+    }
+
+    static long base64Length(long length) {
+        return (length + 2) / 3 * 4;
+    }
+}
@@ -0,0 +1,295 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Re-encodes PNG images losslessly with a filter chosen per row and maximal deflate level.
+ * Scanlines are processed one at a time, so the decoded image is never held in memory as a whole.
+ * Images are returned unchanged if they are not a non-interlaced PNG or the result would not be smaller.
+ */
+@Slf4j
+public final class PngOptimizer {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int IHDR_LENGTH = 13;
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    private PngOptimizer() {
+    }
+
+    public static ImageSource optimize(ImageSource image) {
+        byte[] original;
+        try (InputStream inputStream = image.openStream()) {
+            original = inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] optimized;
+        try {
+            optimized = reencode(original);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Image is not re-encoded: {}", e.toString());
+            return image;
+        }
+        if (optimized == null || optimized.length >= original.length) {
+            return image;
+        }
+        log.debug("Image re-encoded from {} to {} bytes", original.length, optimized.length);
+        return ImageSource.ofBytes(optimized);
+    }
+
+    /**
+     * @return re-encoded image, or {@code null} if the format is not supported
+     */
+    static byte[] reencode(byte[] png) throws IOException {
+        if (png.length < SIGNATURE.length || !Arrays.equals(Arrays.copyOf(png, SIGNATURE.length), SIGNATURE)) {
+            return null;
+        }
+        List<Chunk> chunksBeforeData = new ArrayList<>();
+        List<Chunk> chunksAfterData = new ArrayList<>();
+        List<InputStream> data = new ArrayList<>();
+        Chunk header = null;
+        ByteBuffer buffer = ByteBuffer.wrap(png, SIGNATURE.length, png.length - SIGNATURE.length);
+        while (buffer.hasRemaining()) {
+            int length = buffer.getInt();
+            byte[] typeBytes = new byte[4];
+            buffer.get(typeBytes);
+            String type = new String(typeBytes, StandardCharsets.US_ASCII);
+            if (length < 0 || length > buffer.remaining() - 4) {
+                throw new EOFException("Truncated " + type + " chunk");
+            }
+            Chunk chunk = new Chunk(type, buffer.position(), length);
+            buffer.position(buffer.position() + length + 4);
+            if (type.equals("IHDR")) {
+                header = chunk;
+            } else if (type.equals("IDAT")) {
+                data.add(new ByteArrayInputStream(png, chunk.offset, chunk.length));
+            } else if (type.equals("IEND")) {
+                break;
+            } else if (data.isEmpty()) {
+                chunksBeforeData.add(chunk);
+            } else {
+                chunksAfterData.add(chunk);
+            }
+        }
+        if (header == null || header.length != IHDR_LENGTH || data.isEmpty()) {
+            return null;
+        }
+
+        ByteBuffer ihdr = ByteBuffer.wrap(png, header.offset, header.length);
+        int width = ihdr.getInt();
+        int height = ihdr.getInt();
+        int bitDepth = ihdr.get();
+        int colorType = ihdr.get();
+        ihdr.get();
+        ihdr.get();
+        int interlace = ihdr.get();
+        int bitsPerPixel = channels(colorType) * bitDepth;
+        if (interlace != 0 || bitsPerPixel <= 0 || width <= 0 || height <= 0) {
+            return null;
+        }
+        long rowLength = ((long) width * bitsPerPixel + 7) / 8;
+        if (rowLength > Integer.MAX_VALUE - 1) {
+            return null;
+        }
+        // filters work on whole bytes, sub-byte pixels use the previous byte
+        int bytesPerPixel = Math.max(1, bitsPerPixel / 8);
+        // adaptive filtering rarely helps palette and sub-byte images
+        boolean adaptive = colorType != 3 && bitDepth >= 8;
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(png.length);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        Inflater inflater = new Inflater();
+        try (InputStream scanlines = new InflaterInputStream(new SequenceInputStream(Collections.enumeration(data)), inflater);
+             DeflaterOutputStream output = new DeflaterOutputStream(compressed, deflater, 64 * 1024)) {
+            RowFilter filter = new RowFilter((int) rowLength, bytesPerPixel);
+            for (int row = 0; row < height; row++) {
+                int filterType = scanlines.read();
+                if (filterType < 0) {
+                    throw new EOFException("Image data ends at row " + row);
+                }
+                filter.readRow(scanlines, filterType);
+                output.write(adaptive ? filter.bestFilteredRow() : filter.filteredRow(FILTER_NONE));
+            }
+        } finally {
+            deflater.end();
+            inflater.end();
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(compressed.size() + 1024);
+        DataOutputStream output = new DataOutputStream(result);
+        output.write(SIGNATURE);
+        writeChunk(output, "IHDR", png, header.offset, header.length);
+        for (Chunk chunk : chunksBeforeData) {
+            writeChunk(output, chunk.type, png, chunk.offset, chunk.length);
+        }
+        writeChunk(output, "IDAT", compressed.toByteArray(), 0, compressed.size());
+        for (Chunk chunk : chunksAfterData) {
+            writeChunk(output, chunk.type, png, chunk.offset, chunk.length);
+        }
+        writeChunk(output, "IEND", new byte[0], 0, 0);
+        return result.toByteArray();
+    }
+
+    private static int channels(int colorType) {
+        switch (colorType) {
+            case 0:
+            case 3:
+                return 1;
+            case 2:
+                return 3;
+            case 4:
+                return 2;
+            case 6:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private static void writeChunk(DataOutputStream output, String type, byte[] data, int offset, int length)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+        output.writeInt(length);
+        output.write(typeBytes);
+        output.write(data, offset, length);
+        output.writeInt((int) crc.getValue());
+    }
+
+    private static class Chunk {
+
+        private final String type;
+        private final int offset;
+        private final int length;
+
+        private Chunk(String type, int offset, int length) {
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Keeps the current and the previous unfiltered scanline and filters the current one.
+     */
+    private static class RowFilter {
+
+        private final int rowLength;
+        private final int bytesPerPixel;
+        private byte[] previous;
+        private byte[] current;
+        private final byte[][] candidates = new byte[5][];
+
+        private RowFilter(int rowLength, int bytesPerPixel) {
+            this.rowLength = rowLength;
+            this.bytesPerPixel = bytesPerPixel;
+            this.previous = new byte[rowLength];
+            this.current = new byte[rowLength];
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = new byte[rowLength + 1];
+                candidates[i][0] = (byte) i;
+            }
+        }
+
+        private void readRow(InputStream scanlines, int filterType) throws IOException {
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+            if (scanlines.readNBytes(current, 0, rowLength) != rowLength) {
+                throw new EOFException("Truncated image data");
+            }
+            for (int i = 0; i < rowLength; i++) {
+                int left = i >= bytesPerPixel ? current[i - bytesPerPixel] & 0xFF : 0;
+                int up = previous[i] & 0xFF;
+                int upLeft = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+                current[i] += (byte) predict(filterType, left, up, upLeft);
+            }
+        }
+
+        private byte[] filteredRow(int filterType) {
+            byte[] filtered = candidates[filterType];
+            for (int i = 0; i < rowLength; i++) {
+                int left = i >= bytesPerPixel ? current[i - bytesPerPixel] & 0xFF : 0;
+                int up = previous[i] & 0xFF;
+                int upLeft = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xFF : 0;
+                filtered[i + 1] = (byte) (current[i] - predict(filterType, left, up, upLeft));
+            }
+            return filtered;
+        }
+
+        /**
+         * Filter with the minimal sum of absolute differences, the heuristic recommended by the PNG specification.
+         */
+        private byte[] bestFilteredRow() {
+            byte[] best = null;
+            long bestSum = Long.MAX_VALUE;
+            for (int filterType = FILTER_NONE; filterType <= FILTER_PAETH; filterType++) {
+                byte[] filtered = filteredRow(filterType);
+                long sum = 0;
+                for (int i = 1; i < filtered.length && sum < bestSum; i++) {
+                    sum += Math.abs(filtered[i]);
+                }
+                if (sum < bestSum) {
+                    bestSum = sum;
+                    best = filtered;
+                }
+            }
+            return best;
+        }
+
+        private static int predict(int filterType, int left, int up, int upLeft) {
+            switch (filterType) {
+                case FILTER_NONE:
+                    return 0;
+                case FILTER_SUB:
+                    return left;
+                case FILTER_UP:
+                    return up;
+                case FILTER_AVERAGE:
+                    return (left + up) >>> 1;
+                case FILTER_PAETH:
+                    return paeth(left, up, upLeft);
+                default:
+                    throw new IllegalArgumentException("Unknown filter type " + filterType);
+            }
+        }
+
+        private static int paeth(int left, int up, int upLeft) {
+            int estimate = left + up - upLeft;
+            int distanceLeft = Math.abs(estimate - left);
+            int distanceUp = Math.abs(estimate - up);
+            int distanceUpLeft = Math.abs(estimate - upLeft);
+            if (distanceLeft <= distanceUp && distanceLeft <= distanceUpLeft) {
+                return left;
+            }
+            return distanceUp <= distanceUpLeft ? up : upLeft;
+        }
+    }
+}
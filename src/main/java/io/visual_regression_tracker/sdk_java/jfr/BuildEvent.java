@@ -0,0 +1,30 @@
+package io.visual_regression_tracker.sdk_java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("io.visual_regression_tracker.Build")
+@Label("Build")
+@Category("Visual Regression Tracker")
+@Description("Start or stop of a build")
+@StackTrace(false)
+@Setter
+public class BuildEvent extends Event {
+
+    public static final String START = "start";
+    public static final String STOP = "stop";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Build Id")
+    private String buildId;
+
+    @Label("CI Build Id")
+    private String ciBuildId;
+}
@@ -0,0 +1,31 @@
+package io.visual_regression_tracker.sdk_java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+@Name("io.visual_regression_tracker.Retry")
+@Label("Retry")
+@Category("Visual Regression Tracker")
+@Description("Failed HTTP attempt that is retried")
+@StackTrace(false)
+@Setter
+public class RetryEvent extends Event {
+
+    @Label("Attempt")
+    @Description("Number of the failed attempt, starting from 1")
+    private int attempt;
+
+    @Label("Failure")
+    @Description("Status code or exception of the failed attempt")
+    private String failure;
+
+    @Label("Backoff")
+    @Timespan(Timespan.MILLISECONDS)
+    private long backoff;
+}
@@ -0,0 +1,26 @@
+package io.visual_regression_tracker.sdk_java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("io.visual_regression_tracker.Serialization")
+@Label("Serialization")
+@Category("Visual Regression Tracker")
+@Description("Parsing of a response body. Request bodies are serialized while they are sent")
+@StackTrace(false)
+@Setter
+public class SerializationEvent extends Event {
+
+    @Label("Type")
+    private String type;
+
+    @Label("Size")
+    @DataAmount
+    private long bytes;
+}
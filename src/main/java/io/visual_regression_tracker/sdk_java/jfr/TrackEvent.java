@@ -0,0 +1,39 @@
+package io.visual_regression_tracker.sdk_java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+@Name("io.visual_regression_tracker.Track")
+@Label("Track")
+@Category("Visual Regression Tracker")
+@Description("Submission of a test run, from track until its response is parsed")
+@StackTrace(false)
+@Setter
+public class TrackEvent extends Event {
+
+    @Label("Name")
+    private String name;
+
+    @Label("Image Size")
+    @DataAmount
+    private long imageBytes;
+
+    @Label("Status")
+    @Description("Empty if the status is not known yet, e.g. for spooled or deferred test runs")
+    private String status;
+
+    @Label("Diff Percent")
+    private float diffPercent;
+
+    @Label("Server Time")
+    @Description("Upload including retries and the comparison on the server, 0 if the image was not uploaded")
+    @Timespan
+    private long serverTime;
+}
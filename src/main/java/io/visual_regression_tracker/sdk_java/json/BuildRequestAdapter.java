@@ -0,0 +1,52 @@
+package io.visual_regression_tracker.sdk_java.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.visual_regression_tracker.sdk_java.request.BuildRequest;
+
+import java.io.IOException;
+
+class BuildRequestAdapter extends TypeAdapter<BuildRequest> {
+
+    @Override
+    public void write(JsonWriter out, BuildRequest value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        JsonValues.write(out, "project", value.getProject());
+        JsonValues.write(out, "branchName", value.getBranchName());
+        JsonValues.write(out, "ciBuildId", value.getCiBuildId());
+        out.endObject();
+    }
+
+    @Override
+    public BuildRequest read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        BuildRequest.BuildRequestBuilder builder = BuildRequest.builder();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "project":
+                    builder.project(JsonValues.nextString(in));
+                    break;
+                case "branchName":
+                    builder.branchName(JsonValues.nextString(in));
+                    break;
+                case "ciBuildId":
+                    builder.ciBuildId(JsonValues.nextString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return builder.build();
+    }
+}
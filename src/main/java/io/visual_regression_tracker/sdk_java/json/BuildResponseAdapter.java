@@ -0,0 +1,106 @@
+package io.visual_regression_tracker.sdk_java.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.visual_regression_tracker.sdk_java.response.BuildResponse;
+
+import java.io.IOException;
+
+class BuildResponseAdapter extends TypeAdapter<BuildResponse> {
+
+    @Override
+    public void write(JsonWriter out, BuildResponse value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        JsonValues.write(out, "id", value.getId());
+        JsonValues.write(out, "projectId", value.getProjectId());
+        JsonValues.write(out, "ciBuildId", value.getCiBuildId());
+        out.name("number").value(value.getNumber());
+        JsonValues.write(out, "branchName", value.getBranchName());
+        JsonValues.write(out, "status", value.getStatus());
+        JsonValues.write(out, "userId", value.getUserId());
+        out.name("passedCount").value(value.getPassedCount());
+        out.name("failedCount").value(value.getFailedCount());
+        out.name("unresolvedCount").value(value.getUnresolvedCount());
+        out.name("merge").value(value.isMerge());
+        out.name("isRunning").value(value.isRunning());
+        out.endObject();
+    }
+
+    @Override
+    public BuildResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        BuildResponse.BuildResponseBuilder builder = BuildResponse.builder();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    builder.id(JsonValues.nextString(in));
+                    break;
+                case "projectId":
+                    builder.projectId(JsonValues.nextString(in));
+                    break;
+                case "ciBuildId":
+                    builder.ciBuildId(JsonValues.nextString(in));
+                    break;
+                case "number":
+                    Integer number = JsonValues.nextInteger(in);
+                    if (number != null) {
+                        builder.number(number);
+                    }
+                    break;
+                case "branchName":
+                    builder.branchName(JsonValues.nextString(in));
+                    break;
+                case "status":
+                    builder.status(JsonValues.nextString(in));
+                    break;
+                case "userId":
+                    builder.userId(JsonValues.nextString(in));
+                    break;
+                case "passedCount":
+                    Integer passedCount = JsonValues.nextInteger(in);
+                    if (passedCount != null) {
+                        builder.passedCount(passedCount);
+                    }
+                    break;
+                case "failedCount":
+                    Integer failedCount = JsonValues.nextInteger(in);
+                    if (failedCount != null) {
+                        builder.failedCount(failedCount);
+                    }
+                    break;
+                case "unresolvedCount":
+                    Integer unresolvedCount = JsonValues.nextInteger(in);
+                    if (unresolvedCount != null) {
+                        builder.unresolvedCount(unresolvedCount);
+                    }
+                    break;
+                case "merge":
+                    Boolean merge = JsonValues.nextBoolean(in);
+                    if (merge != null) {
+                        builder.merge(merge);
+                    }
+                    break;
+                case "isRunning":
+                    Boolean running = JsonValues.nextBoolean(in);
+                    if (running != null) {
+                        builder.isRunning(running);
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return builder.build();
+    }
+}
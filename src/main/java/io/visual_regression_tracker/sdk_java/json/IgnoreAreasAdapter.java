@@ -0,0 +1,56 @@
+package io.visual_regression_tracker.sdk_java.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.visual_regression_tracker.sdk_java.IgnoreAreas;
+
+import java.io.IOException;
+
+class IgnoreAreasAdapter extends TypeAdapter<IgnoreAreas> {
+
+    @Override
+    public void write(JsonWriter out, IgnoreAreas value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        JsonValues.write(out, "x", value.getX());
+        JsonValues.write(out, "y", value.getY());
+        JsonValues.write(out, "width", value.getWidth());
+        JsonValues.write(out, "height", value.getHeight());
+        out.endObject();
+    }
+
+    @Override
+    public IgnoreAreas read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        IgnoreAreas.IgnoreAreasBuilder builder = IgnoreAreas.builder();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "x":
+                    builder.x(JsonValues.nextLong(in));
+                    break;
+                case "y":
+                    builder.y(JsonValues.nextLong(in));
+                    break;
+                case "width":
+                    builder.width(JsonValues.nextLong(in));
+                    break;
+                case "height":
+                    builder.height(JsonValues.nextLong(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return builder.build();
+    }
+}
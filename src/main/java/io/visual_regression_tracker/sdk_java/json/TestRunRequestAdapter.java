@@ -0,0 +1,113 @@
+package io.visual_regression_tracker.sdk_java.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.visual_regression_tracker.sdk_java.IgnoreAreas;
+import io.visual_regression_tracker.sdk_java.request.TestRunRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+class TestRunRequestAdapter extends TypeAdapter<TestRunRequest> {
+
+    private final IgnoreAreasAdapter ignoreAreasAdapter = new IgnoreAreasAdapter();
+
+    @Override
+    public void write(JsonWriter out, TestRunRequest value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        JsonValues.write(out, "projectId", value.getProjectId());
+        JsonValues.write(out, "buildId", value.getBuildId());
+        JsonValues.write(out, "name", value.getName());
+        JsonValues.write(out, "imageBase64", value.getImageBase64());
+        JsonValues.write(out, "os", value.getOs());
+        JsonValues.write(out, "browser", value.getBrowser());
+        JsonValues.write(out, "viewport", value.getViewport());
+        JsonValues.write(out, "device", value.getDevice());
+        JsonValues.write(out, "customTags", value.getCustomTags());
+        JsonValues.write(out, "diffTollerancePercent", value.getDiffTollerancePercent());
+        JsonValues.write(out, "branchName", value.getBranchName());
+        if (value.getIgnoreAreas() != null) {
+            out.name("ignoreAreas").beginArray();
+            for (IgnoreAreas ignoreArea : value.getIgnoreAreas()) {
+                ignoreAreasAdapter.write(out, ignoreArea);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public TestRunRequest read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        TestRunRequest.TestRunRequestBuilder builder = TestRunRequest.builder();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "projectId":
+                    builder.projectId(JsonValues.nextString(in));
+                    break;
+                case "buildId":
+                    builder.buildId(JsonValues.nextString(in));
+                    break;
+                case "name":
+                    builder.name(JsonValues.nextString(in));
+                    break;
+                case "imageBase64":
+                    builder.imageBase64(JsonValues.nextString(in));
+                    break;
+                case "os":
+                    builder.os(JsonValues.nextString(in));
+                    break;
+                case "browser":
+                    builder.browser(JsonValues.nextString(in));
+                    break;
+                case "viewport":
+                    builder.viewport(JsonValues.nextString(in));
+                    break;
+                case "device":
+                    builder.device(JsonValues.nextString(in));
+                    break;
+                case "customTags":
+                    builder.customTags(JsonValues.nextString(in));
+                    break;
+                case "diffTollerancePercent":
+                    builder.diffTollerancePercent(JsonValues.nextFloat(in));
+                    break;
+                case "branchName":
+                    builder.branchName(JsonValues.nextString(in));
+                    break;
+                case "ignoreAreas":
+                    builder.ignoreAreas(readIgnoreAreas(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return builder.build();
+    }
+
+    private List<IgnoreAreas> readIgnoreAreas(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<IgnoreAreas> ignoreAreas = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            ignoreAreas.add(ignoreAreasAdapter.read(in));
+        }
+        in.endArray();
+        return ignoreAreas;
+    }
+}
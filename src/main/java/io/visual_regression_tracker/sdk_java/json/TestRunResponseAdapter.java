@@ -0,0 +1,89 @@
+package io.visual_regression_tracker.sdk_java.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.visual_regression_tracker.sdk_java.response.TestRunResponse;
+
+import java.io.IOException;
+
+class TestRunResponseAdapter extends TypeAdapter<TestRunResponse> {
+
+    private final TestRunStatusAdapter statusAdapter = new TestRunStatusAdapter();
+
+    @Override
+    public void write(JsonWriter out, TestRunResponse value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        JsonValues.write(out, "id", value.getId());
+        JsonValues.write(out, "name", value.getName());
+        JsonValues.write(out, "imageName", value.getImageName());
+        JsonValues.write(out, "diffName", value.getDiffName());
+        JsonValues.write(out, "baselineName", value.getBaselineName());
+        JsonValues.write(out, "diffPercent", value.getDiffPercent());
+        JsonValues.write(out, "diffTollerancePercent", value.getDiffTollerancePercent());
+        JsonValues.write(out, "pixelMisMatchCount", value.getPixelMisMatchCount());
+        JsonValues.write(out, "merge", value.getMerge());
+        JsonValues.write(out, "url", value.getUrl());
+        if (value.getStatus() != null) {
+            out.name("status");
+            statusAdapter.write(out, value.getStatus());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public TestRunResponse read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        TestRunResponse.TestRunResponseBuilder builder = TestRunResponse.builder();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    builder.id(JsonValues.nextString(in));
+                    break;
+                case "name":
+                    builder.name(JsonValues.nextString(in));
+                    break;
+                case "imageName":
+                    builder.imageName(JsonValues.nextString(in));
+                    break;
+                case "diffName":
+                    builder.diffName(JsonValues.nextString(in));
+                    break;
+                case "baselineName":
+                    builder.baselineName(JsonValues.nextString(in));
+                    break;
+                case "diffPercent":
+                    builder.diffPercent(JsonValues.nextFloat(in));
+                    break;
+                case "diffTollerancePercent":
+                    builder.diffTollerancePercent(JsonValues.nextFloat(in));
+                    break;
+                case "pixelMisMatchCount":
+                    builder.pixelMisMatchCount(JsonValues.nextInteger(in));
+                    break;
+                case "merge":
+                    builder.merge(JsonValues.nextBoolean(in));
+                    break;
+                case "url":
+                    builder.url(JsonValues.nextString(in));
+                    break;
+                case "status":
+                    builder.status(statusAdapter.read(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return builder.build();
+    }
+}
@@ -0,0 +1,62 @@
+package io.visual_regression_tracker.sdk_java.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import io.visual_regression_tracker.sdk_java.TestRunStatus;
+
+import java.io.IOException;
+
+/**
+ * Uses the same names as {@code @SerializedName} on {@link TestRunStatus}. Unknown values are read as {@code null}.
+ */
+class TestRunStatusAdapter extends TypeAdapter<TestRunStatus> {
+
+    @Override
+    public void write(JsonWriter out, TestRunStatus value) throws IOException {
+        out.value(value == null ? null : name(value));
+    }
+
+    @Override
+    public TestRunStatus read(JsonReader in) throws IOException {
+        String name = JsonValues.nextString(in);
+        if (name == null) {
+            return null;
+        }
+        switch (name) {
+            case "ok":
+                return TestRunStatus.OK;
+            case "approved":
+                return TestRunStatus.APPROVED;
+            case "autoApproved":
+                return TestRunStatus.AUTO_APPROVED;
+            case "failed":
+                return TestRunStatus.FAILED;
+            case "new":
+                return TestRunStatus.NEW;
+            case "unresolved":
+                return TestRunStatus.UNRESOLVED;
+            default:
+                return null;
+        }
+    }
+
+    static String name(TestRunStatus status) {
+        switch (status) {
+            case OK:
+                return "ok";
+            case APPROVED:
+                return "approved";
+            case AUTO_APPROVED:
+                return "autoApproved";
+            case FAILED:
+                return "failed";
+            case NEW:
+                return "new";
+            case UNRESOLVED:
+                return "unresolved";
+            default:
+                throw new IllegalArgumentException("Unknown test run status " + status);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.visual_regression_tracker.sdk_java.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import io.visual_regression_tracker.sdk_java.IgnoreAreas;
+import io.visual_regression_tracker.sdk_java.TestRunStatus;
+import io.visual_regression_tracker.sdk_java.request.BuildRequest;
+import io.visual_regression_tracker.sdk_java.request.TestRunRequest;
+import io.visual_regression_tracker.sdk_java.response.BuildResponse;
+import io.visual_regression_tracker.sdk_java.response.TestRunResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hand-written adapters for the API request and response classes. They produce the same JSON as reflective Gson
+ * without reflection, which also keeps the SDK usable in GraalVM native images without reflection configuration.
+ */
+public class VrtTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final Map<Class<?>, TypeAdapter<?>> adapters = new HashMap<>();
+
+    public VrtTypeAdapterFactory() {
+        adapters.put(BuildRequest.class, new BuildRequestAdapter().nullSafe());
+        adapters.put(BuildResponse.class, new BuildResponseAdapter().nullSafe());
+        adapters.put(TestRunRequest.class, new TestRunRequestAdapter().nullSafe());
+        adapters.put(TestRunResponse.class, new TestRunResponseAdapter().nullSafe());
+        adapters.put(IgnoreAreas.class, new IgnoreAreasAdapter().nullSafe());
+        adapters.put(TestRunStatus.class, new TestRunStatusAdapter().nullSafe());
+    }
+
+    public static Gson createGson() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new VrtTypeAdapterFactory())
+                .create();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        return (TypeAdapter<T>) adapters.get(type.getRawType());
+    }
+}
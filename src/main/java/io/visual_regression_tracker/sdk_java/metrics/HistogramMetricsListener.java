@@ -0,0 +1,94 @@
+package io.visual_regression_tracker.sdk_java.metrics;
+
+import io.visual_regression_tracker.sdk_java.TestRunStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects latency histograms per phase and traffic counters, and logs p50/p95/p99 when the build is stopped.
+ */
+@Slf4j
+public class HistogramMetricsListener implements MetricsListener {
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final ConcurrentMap<Integer, AtomicLong> statusCodes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TestRunStatus, AtomicLong> testRunStatuses = new ConcurrentHashMap<>();
+
+    public HistogramMetricsListener() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    public Map<Integer, Long> getStatusCodes() {
+        return snapshot(statusCodes);
+    }
+
+    public Map<TestRunStatus, Long> getTestRunStatuses() {
+        return snapshot(testRunStatuses);
+    }
+
+    @Override
+    public void onPhase(Phase phase, Duration duration) {
+        histograms.get(phase).record(duration);
+    }
+
+    @Override
+    public void onHttpResponse(String method, int statusCode, long requestBytes, long responseBytes) {
+        this.requestBytes.add(requestBytes);
+        this.responseBytes.add(responseBytes);
+        statusCodes.computeIfAbsent(statusCode, code -> new AtomicLong()).incrementAndGet();
+    }
+
+    @Override
+    public void onTestRun(String name, TestRunStatus status) {
+        testRunStatuses.computeIfAbsent(status, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    @Override
+    public void onStop(String buildId) {
+        log.info("Metrics for buildId <{}>:", buildId);
+        histograms.forEach((phase, histogram) -> {
+            if (histogram.getCount() > 0) {
+                log.info("  {}: count {}, p50 {} ms, p95 {} ms, p99 {} ms, max {} ms", phase, histogram.getCount(),
+                        millis(histogram.getPercentile(50)), millis(histogram.getPercentile(95)),
+                        millis(histogram.getPercentile(99)), millis(histogram.getMax()));
+            }
+        });
+        log.info("  sent {} bytes, received {} bytes, status codes {}, test runs {}",
+                getRequestBytes(), getResponseBytes(), getStatusCodes(), getTestRunStatuses());
+    }
+
+    private static String millis(Duration duration) {
+        return String.format(Locale.ROOT, "%.1f", duration.toNanos() / 1_000_000.0);
+    }
+
+    private static <K> Map<K, Long> snapshot(Map<K, AtomicLong> counters) {
+        Map<K, Long> snapshot = new TreeMap<>();
+        counters.forEach((key, counter) -> snapshot.put(key, counter.get()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,63 @@
+package io.visual_regression_tracker.sdk_java.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations from 1 microsecond to about an hour.
+ * Buckets grow exponentially by a factor of 2^(1/8), so percentiles are accurate to about 9%.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS_PER_DOUBLING = 8;
+    private static final int BUCKET_COUNT = 32 * BUCKETS_PER_DOUBLING;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(Duration duration) {
+        long micros = Math.max(1, duration.toNanos() / 1_000);
+        buckets.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(maxMicros.get() * 1_000);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket holding the percentile, never above the maximum recorded value
+     */
+    public Duration getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.min(upperBoundMicros(bucket), maxMicros.get()) * 1_000);
+            }
+        }
+        return getMax();
+    }
+
+    private static int bucketOf(long micros) {
+        int bucket = (int) Math.ceil(Math.log(micros) / Math.log(2) * BUCKETS_PER_DOUBLING);
+        return Math.min(BUCKET_COUNT - 1, bucket);
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        return (long) Math.ceil(Math.pow(2, (double) bucket / BUCKETS_PER_DOUBLING));
+    }
+}
@@ -0,0 +1,33 @@
+package io.visual_regression_tracker.sdk_java.metrics;
+
+import io.visual_regression_tracker.sdk_java.TestRunStatus;
+
+import java.time.Duration;
+
+/**
+ * Receives measurements of the tracker. Methods may be called concurrently from SDK threads
+ * and must not block; all of them do nothing by default.
+ */
+public interface MetricsListener {
+
+    /**
+     * Called when a phase completes, successfully or not.
+     */
+    default void onPhase(Phase phase, Duration duration) {
+    }
+
+    /**
+     * Called for the final response of every HTTP exchange, after retries.
+     */
+    default void onHttpResponse(String method, int statusCode, long requestBytes, long responseBytes) {
+    }
+
+    default void onTestRun(String name, TestRunStatus status) {
+    }
+
+    /**
+     * Called after the build is stopped.
+     */
+    default void onStop(String buildId) {
+    }
+}
@@ -0,0 +1,60 @@
+package io.visual_regression_tracker.sdk_java.metrics;
+
+import io.visual_regression_tracker.sdk_java.TestRunStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches to all registered listeners. A failing listener is logged and doesn't affect tracking.
+ */
+@Slf4j
+public class MetricsListeners implements MetricsListener {
+
+    private final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void add(MetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    public void remove(MetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    @Override
+    public void onPhase(Phase phase, Duration duration) {
+        dispatch(listener -> listener.onPhase(phase, duration));
+    }
+
+    @Override
+    public void onHttpResponse(String method, int statusCode, long requestBytes, long responseBytes) {
+        dispatch(listener -> listener.onHttpResponse(method, statusCode, requestBytes, responseBytes));
+    }
+
+    @Override
+    public void onTestRun(String name, TestRunStatus status) {
+        dispatch(listener -> listener.onTestRun(name, status));
+    }
+
+    @Override
+    public void onStop(String buildId) {
+        dispatch(listener -> listener.onStop(buildId));
+    }
+
+    private void dispatch(Consumer<MetricsListener> event) {
+        for (MetricsListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                log.warn("Metrics listener <{}> failed", listener, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.visual_regression_tracker.sdk_java.metrics;
+
+public enum Phase {
+    START,
+    /**
+     * Connections opened and JSON adapters initialized by {@code start} while the build is created
+     */
+    WARM_UP,
+    /**
+     * Whole submission of a test run, from {@code track} until its response is parsed
+     */
+    SUBMIT_TEST_RUN,
+    /**
+     * HTTP exchange including retries, request encoding and server side comparison
+     */
+    GET_RESPONSE,
+    HANDLE_RESPONSE,
+    STOP
+}
@@ -0,0 +1,100 @@
+package io.visual_regression_tracker.sdk_java.request;
+
+import com.google.gson.Gson;
+import io.visual_regression_tracker.sdk_java.http.RequestBody;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Streams a test run as {@code multipart/form-data}: metadata as text fields and the image as raw PNG bytes.
+ * Field values are written as they are, so values with line breaks are not supported, see {@link #supports}.
+ */
+public class TestRunMultipartBody {
+
+    private static final String CRLF = "\r\n";
+    private static final String IMAGE_FIELD = "image";
+
+    private TestRunMultipartBody() {
+    }
+
+    /**
+     * @return false if a field value contains a line break, which could end the field early,
+     * so the test run has to be sent as JSON instead
+     */
+    public static boolean supports(TestRunRequest request) {
+        return textFields(request).values().stream()
+                .noneMatch(value -> value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the request is not {@link #supports supported}
+     */
+    public static RequestBody create(Gson gson, TestRunRequest request, ImageSource image) {
+        if (!supports(request)) {
+            throw new IllegalArgumentException("Test run <" + request.getName()
+                    + "> has a field with a line break, which multipart upload does not support");
+        }
+        Map<String, String> values = textFields(request);
+        if (request.getIgnoreAreas() != null) {
+            values.put("ignoreAreas", gson.toJson(request.getIgnoreAreas()));
+        }
+        String boundary = "vrt-" + UUID.randomUUID();
+        StringBuilder fields = new StringBuilder();
+        values.forEach((name, value) -> appendField(fields, boundary, name, value));
+        fields.append("--").append(boundary).append(CRLF)
+                .append("Content-Disposition: form-data; name=\"").append(IMAGE_FIELD)
+                .append("\"; filename=\"").append(IMAGE_FIELD).append(".png\"").append(CRLF)
+                .append("Content-Type: image/png").append(CRLF)
+                .append(CRLF);
+
+        byte[] head = fields.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] tail = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.UTF_8);
+        long contentLength = head.length + image.length() + tail.length;
+        return new RequestBody("multipart/form-data; boundary=" + boundary, contentLength,
+                () -> open(head, image, tail));
+    }
+
+    private static Map<String, String> textFields(TestRunRequest request) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        putField(fields, "projectId", request.getProjectId());
+        putField(fields, "buildId", request.getBuildId());
+        putField(fields, "name", request.getName());
+        putField(fields, "os", request.getOs());
+        putField(fields, "browser", request.getBrowser());
+        putField(fields, "viewport", request.getViewport());
+        putField(fields, "device", request.getDevice());
+        putField(fields, "customTags", request.getCustomTags());
+        putField(fields, "diffTollerancePercent", request.getDiffTollerancePercent());
+        putField(fields, "branchName", request.getBranchName());
+        return fields;
+    }
+
+    private static void putField(Map<String, String> fields, String name, Object value) {
+        if (value != null) {
+            fields.put(name, String.valueOf(value));
+        }
+    }
+
+    private static void appendField(StringBuilder fields, String boundary, String name, String value) {
+        fields.append("--").append(boundary).append(CRLF)
+                .append("Content-Disposition: form-data; name=\"").append(name).append("\"").append(CRLF)
+                .append(CRLF)
+                .append(value).append(CRLF);
+    }
+
+    private static InputStream open(byte[] head, ImageSource image, byte[] tail) {
+        return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                new ByteArrayInputStream(head),
+                image.openStream(),
+                new ByteArrayInputStream(tail))));
+    }
+}
@@ -0,0 +1,49 @@
+package io.visual_regression_tracker.sdk_java.request;
+
+import com.google.gson.Gson;
+import io.visual_regression_tracker.sdk_java.http.RequestBody;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Streams {@link TestRunRequest} JSON. Metadata is serialized up front, while the image
+ * is written between the surrounding JSON parts straight from its {@link ImageSource}.
+ */
+public class TestRunRequestBody {
+
+    private static final String IMAGE_PLACEHOLDER_PREFIX = "vrt-image-";
+
+    private TestRunRequestBody() {
+    }
+
+    /**
+     * @param gson           serializer for the request metadata
+     * @param requestBuilder builder with every field but the image set
+     * @param image          image to stream as {@code imageBase64}
+     */
+    public static RequestBody create(Gson gson, TestRunRequest.TestRunRequestBuilder requestBuilder, ImageSource image) {
+        // random, so no other field can contain it
+        String placeholder = IMAGE_PLACEHOLDER_PREFIX + UUID.randomUUID();
+        String json = gson.toJson(requestBuilder.imageBase64(placeholder).build());
+        int placeholderIndex = json.indexOf(placeholder);
+        byte[] prefix = json.substring(0, placeholderIndex).getBytes(StandardCharsets.UTF_8);
+        byte[] suffix = json.substring(placeholderIndex + placeholder.length()).getBytes(StandardCharsets.UTF_8);
+
+        long contentLength = prefix.length + image.base64Length() + suffix.length;
+        return new RequestBody(RequestBody.JSON_CONTENT_TYPE, contentLength, () -> open(prefix, image, suffix));
+    }
+
+    private static InputStream open(byte[] prefix, ImageSource image, byte[] suffix) {
+        return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                new ByteArrayInputStream(prefix),
+                image.openBase64Stream(),
+                new ByteArrayInputStream(suffix))));
+    }
+}
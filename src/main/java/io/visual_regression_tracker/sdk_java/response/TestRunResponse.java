@@ -8,6 +8,7 @@ import lombok.Getter;
 @Builder
 public class TestRunResponse {
     private final String id;
+    private final String name;
     private final String imageName;
     private final String diffName;
     private final String baselineName;
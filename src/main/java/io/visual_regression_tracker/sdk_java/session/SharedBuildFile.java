@@ -0,0 +1,131 @@
+package io.visual_regression_tracker.sdk_java.session;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import io.visual_regression_tracker.sdk_java.response.BuildResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Build shared by the shards of one CI run, possibly in different JVMs on different machines.
+ * The first shard creates the build and records it in the file, later shards attach to it,
+ * and the build is stopped once at least {@code shardCount} shards and every attached one finished,
+ * so a retried or extra shard still uploads into the running build.
+ * Every access holds an exclusive lock on the file, so it must be on a disk with working file locks.
+ */
+@Slf4j
+public class SharedBuildFile {
+
+    // file locks are held by the whole JVM, so trackers within one JVM are serialized here
+    private static final Object JVM_LOCK = new Object();
+
+    private final Path file;
+    private final int shardCount;
+    private final Gson gson = new Gson();
+
+    public SharedBuildFile(Path file, int shardCount) {
+        this.file = file;
+        this.shardCount = Math.max(1, shardCount);
+    }
+
+    @FunctionalInterface
+    public interface BuildStarter {
+        BuildResponse start() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Attaches to the running build of the same {@code ciBuildId}, or starts a new one while other shards wait.
+     * Without a {@code ciBuildId} a new build is always started.
+     */
+    public BuildResponse attach(String ciBuildId, BuildStarter buildStarter) throws IOException, InterruptedException {
+        synchronized (JVM_LOCK) {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                State state = read(channel);
+                if (state != null && state.build != null && ciBuildId != null && ciBuildId.equals(state.ciBuildId)
+                        && !isComplete(state)) {
+                    state.attachedShards++;
+                    write(channel, state);
+                    if (state.attachedShards > shardCount) {
+                        log.warn("Shard {} attached to build <{}> configured for {} shards, the build is stopped "
+                                + "once all attached shards finished", state.attachedShards, state.build.getId(), shardCount);
+                    } else {
+                        log.info("Attached to build <{}> as shard {} of {}", state.build.getId(), state.attachedShards, shardCount);
+                    }
+                    return state.build;
+                }
+                State started = new State();
+                started.build = buildStarter.start();
+                started.ciBuildId = ciBuildId;
+                started.attachedShards = 1;
+                write(channel, started);
+                return started.build;
+            }
+        }
+    }
+
+    /**
+     * Records that a shard finished the build.
+     *
+     * @return true if all shards finished, so the caller has to stop the build
+     */
+    public boolean finish(String buildId) throws IOException {
+        synchronized (JVM_LOCK) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                State state = read(channel);
+                if (state == null || state.build == null || !buildId.equals(state.build.getId())) {
+                    log.warn("Build <{}> is no longer recorded in <{}>, stopping it", buildId, file);
+                    return true;
+                }
+                state.finishedShards++;
+                write(channel, state);
+                log.info("Shard finished build <{}>, {} of {} shards are done", buildId, state.finishedShards,
+                        Math.max(shardCount, state.attachedShards));
+                return isComplete(state);
+            }
+        }
+    }
+
+    private boolean isComplete(State state) {
+        return state.finishedShards >= Math.max(shardCount, state.attachedShards);
+    }
+
+    private State read(FileChannel channel) throws IOException {
+        // the stream is not closed, it would close the locked channel
+        byte[] content = Channels.newInputStream(channel.position(0)).readAllBytes();
+        if (content.length == 0) {
+            return null;
+        }
+        try {
+            return gson.fromJson(new String(content, StandardCharsets.UTF_8), State.class);
+        } catch (JsonParseException e) {
+            log.warn("Can't read shared build file <{}>, starting a new build", file, e);
+            return null;
+        }
+    }
+
+    private void write(FileChannel channel, State state) throws IOException {
+        channel.truncate(0);
+        Channels.newOutputStream(channel.position(0)).write(gson.toJson(state).getBytes(StandardCharsets.UTF_8));
+        channel.force(false);
+    }
+
+    private static class State {
+        private BuildResponse build;
+        private String ciBuildId;
+        private int attachedShards;
+        private int finishedShards;
+    }
+}
@@ -0,0 +1,38 @@
+package io.visual_regression_tracker.sdk_java.spool;
+
+import io.visual_regression_tracker.sdk_java.TestRunResult;
+import io.visual_regression_tracker.sdk_java.VisualRegressionTracker;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Uploads test runs left in a spool directory after a crash, using the configuration of {@code vrt.json}
+ * and the {@code VRT_*} environment variables:
+ * <pre>
+ * java -cp &lt;classpath&gt; io.visual_regression_tracker.sdk_java.spool.SpoolReplay &lt;spoolDirectory&gt; [--stop]
+ * </pre>
+ * With {@code --stop} the builds of the replayed test runs are stopped afterwards.
+ */
+@Slf4j
+public final class SpoolReplay {
+
+    private static final String STOP_OPTION = "--stop";
+
+    private SpoolReplay() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !STOP_OPTION.equals(args[1]))) {
+            System.err.println("Usage: java -cp <classpath> " + SpoolReplay.class.getName()
+                    + " <spoolDirectory> [" + STOP_OPTION + "]");
+            System.exit(2);
+        }
+        try (VisualRegressionTracker visualRegressionTracker = new VisualRegressionTracker()) {
+            List<TestRunResult> results = visualRegressionTracker.replaySpool(Paths.get(args[0]), args.length == 2);
+            log.info("Replayed <{}> test runs from <{}>", results.size(), args[0]);
+        }
+    }
+}
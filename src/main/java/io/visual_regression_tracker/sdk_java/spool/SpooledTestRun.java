@@ -0,0 +1,23 @@
+package io.visual_regression_tracker.sdk_java.spool;
+
+import io.visual_regression_tracker.sdk_java.request.TestRunRequest;
+import lombok.Getter;
+
+/**
+ * Metadata of a spooled test run. The image is stored next to it in the spool.
+ */
+@Getter
+public class SpooledTestRun {
+    /**
+     * Request without the image, already bound to its project and build.
+     */
+    private final TestRunRequest request;
+    private final String dedupKey;
+    private final String contentHash;
+
+    public SpooledTestRun(TestRunRequest request, String dedupKey, String contentHash) {
+        this.request = request;
+        this.dedupKey = dedupKey;
+        this.contentHash = contentHash;
+    }
+}
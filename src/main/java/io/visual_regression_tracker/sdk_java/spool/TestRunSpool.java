@@ -0,0 +1,378 @@
+package io.visual_regression_tracker.sdk_java.spool;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of test runs waiting to be uploaded, split into segments of at most {@code maxSegmentBytes}.
+ * Each record holds the length and CRC32 of its payload, then the {@link SpooledTestRun} JSON and the raw image,
+ * so a record torn by a crash is detected and skipped.
+ * Records are taken oldest first and a segment is deleted once all of its records are acknowledged.
+ * Writes are not forced to the device: records survive a crash of the JVM, not of the machine.
+ */
+@Slf4j
+public class TestRunSpool {
+
+    private static final String SEGMENT_PREFIX = "spool-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ACK_SUFFIX = ".ack";
+    // payload length and CRC32 of the payload
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int METADATA_LENGTH_LENGTH = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final AtomicInteger SPOOL_COUNTER = new AtomicInteger();
+    private static final Gson GSON = new Gson();
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final String runId;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private Path writeSegment;
+    private FileChannel writeChannel;
+    private int segmentSequence;
+    private boolean closed;
+
+    public TestRunSpool(Path directory, long maxSegmentBytes) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        // segments of concurrent and earlier runs never mix, and sort by the time their run started
+        this.runId = String.format("%013d-%d-%d", System.currentTimeMillis(), ProcessHandle.current().pid(),
+                SPOOL_COUNTER.incrementAndGet());
+        try {
+            List<Path> leftovers = segments(directory);
+            if (!leftovers.isEmpty()) {
+                log.warn("<{}> spool segments of an earlier run are left in <{}>, replay them with {}",
+                        leftovers.size(), directory, SpoolReplay.class.getName());
+            }
+        } catch (IOException e) {
+            log.warn("Can't list spool directory <{}>", directory, e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(Record record) throws IOException, InterruptedException;
+    }
+
+    @Getter
+    public static class Record {
+        private final SpooledTestRun run;
+        private final ImageSource image;
+        @Getter(AccessLevel.NONE)
+        private final Entry entry;
+
+        private Record(SpooledTestRun run, ImageSource image, Entry entry) {
+            this.run = run;
+            this.image = image;
+            this.entry = entry;
+        }
+    }
+
+    private static class Entry {
+
+        private final Path segment;
+        private final long offset;
+        private final int length;
+
+        private Entry(Path segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * @return segments in {@code directory}, oldest first
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String fileName = file.getFileName().toString();
+                        return fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Hands every test run left in the segments of {@code directory} to {@code handler}, oldest first.
+     * Progress is recorded after each test run, so an interrupted replay resumes where it stopped.
+     * Replayed segments are deleted.
+     */
+    public static void replay(Path directory, RecordHandler handler) throws IOException, InterruptedException {
+        for (Path segment : segments(directory)) {
+            long offset = readAck(segment);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                long size = channel.size();
+                while (offset + RECORD_HEADER_LENGTH <= size) {
+                    int payloadLength = readFully(channel, offset, RECORD_HEADER_LENGTH).getInt(0);
+                    if (payloadLength < METADATA_LENGTH_LENGTH || offset + RECORD_HEADER_LENGTH + payloadLength > size) {
+                        break;
+                    }
+                    Entry entry = new Entry(segment, offset, RECORD_HEADER_LENGTH + payloadLength);
+                    Record record = null;
+                    try {
+                        record = decode(entry, readFully(channel, offset, entry.length));
+                    } catch (IOException | JsonParseException e) {
+                        log.error("Spooled test run at offset {} of <{}> is corrupt, skipping it", offset, segment, e);
+                    }
+                    if (record != null) {
+                        handler.handle(record);
+                    }
+                    offset += entry.length;
+                    writeAck(segment, offset);
+                }
+                if (offset < size) {
+                    log.warn("Skipping {} bytes of an incomplete test run at the end of <{}>", size - offset, segment);
+                }
+            }
+            delete(segment);
+        }
+    }
+
+    /**
+     * Appends the test run. It is taken once all test runs appended before it are acknowledged.
+     */
+    public synchronized void append(SpooledTestRun run, ImageSource image) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Spool <" + directory + "> is closed");
+        }
+        byte[] metadata = GSON.toJson(run).getBytes(StandardCharsets.UTF_8);
+        long payloadLength = METADATA_LENGTH_LENGTH + metadata.length + image.length();
+        if (RECORD_HEADER_LENGTH + payloadLength > Integer.MAX_VALUE) {
+            throw new IOException("Test run <" + run.getRequest().getName() + "> is too large to be spooled");
+        }
+        int recordLength = (int) (RECORD_HEADER_LENGTH + payloadLength);
+        FileChannel channel = segmentFor(recordLength);
+        long start = channel.size();
+        try {
+            ByteBuffer head = ByteBuffer.allocate(RECORD_HEADER_LENGTH + METADATA_LENGTH_LENGTH + metadata.length);
+            head.putInt((int) payloadLength).putInt(0).putInt(metadata.length).put(metadata).flip();
+            CRC32 crc = new CRC32();
+            crc.update(head.array(), RECORD_HEADER_LENGTH, head.limit() - RECORD_HEADER_LENGTH);
+            long position = start + writeFully(channel, head, start);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream inputStream = image.openStream()) {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                    position += writeFully(channel, ByteBuffer.wrap(buffer, 0, read), position);
+                }
+            }
+            if (position - start != recordLength) {
+                throw new IOException("Image of test run <" + run.getRequest().getName() + "> changed while it was spooled");
+            }
+            // the checksum goes in last, so a record is only valid once it is complete
+            writeFully(channel, ByteBuffer.allocate(4).putInt(0, (int) crc.getValue()), start + 4);
+        } catch (IOException e) {
+            channel.truncate(start);
+            throw e;
+        }
+        entries.addLast(new Entry(writeSegment, start, recordLength));
+        notifyAll();
+    }
+
+    /**
+     * Waits for the oldest test run not acknowledged yet. It is returned again until it is acknowledged.
+     *
+     * @return the test run, or {@code null} once the spool is closed
+     */
+    public Record take() throws InterruptedException {
+        while (true) {
+            Entry entry;
+            synchronized (this) {
+                while (entries.isEmpty() && !closed) {
+                    wait();
+                }
+                if (closed) {
+                    return null;
+                }
+                entry = entries.peekFirst();
+            }
+            // the segment stays until the record is acknowledged, so it is read without holding up appends
+            try (FileChannel channel = FileChannel.open(entry.segment, StandardOpenOption.READ)) {
+                return decode(entry, readFully(channel, entry.offset, entry.length));
+            } catch (IOException | JsonParseException e) {
+                log.error("Spooled test run at offset {} of <{}> can't be read, skipping it", entry.offset, entry.segment, e);
+                acknowledge(entry);
+            }
+        }
+    }
+
+    /**
+     * Marks the test run as done, deleting its segment if it was the last one in it.
+     */
+    public void acknowledge(Record record) {
+        acknowledge(record.entry);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return true if all test runs are acknowledged within the timeout
+     */
+    public synchronized boolean awaitEmpty(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (!entries.isEmpty() && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return entries.isEmpty();
+    }
+
+    /**
+     * Stops taking test runs. Those not acknowledged yet are kept on disk for {@link #replay}.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        notifyAll();
+        try {
+            if (writeChannel != null) {
+                writeChannel.close();
+            }
+            if (entries.isEmpty()) {
+                if (writeSegment != null) {
+                    delete(writeSegment);
+                }
+            } else {
+                log.warn("<{}> test runs are left in spool <{}>, replay them with {}",
+                        entries.size(), directory, SpoolReplay.class.getName());
+            }
+        } catch (IOException e) {
+            log.warn("Can't close spool <{}>", directory, e);
+        }
+    }
+
+    private synchronized void acknowledge(Entry entry) {
+        if (entries.peekFirst() != entry) {
+            return;
+        }
+        entries.removeFirst();
+        notifyAll();
+        Entry next = entries.peekFirst();
+        try {
+            if (!entry.segment.equals(writeSegment) && (next == null || !next.segment.equals(entry.segment))) {
+                delete(entry.segment);
+            } else {
+                writeAck(entry.segment, entry.offset + entry.length);
+            }
+        } catch (IOException e) {
+            log.warn("Can't record progress of spool segment <{}>", entry.segment, e);
+        }
+    }
+
+    private FileChannel segmentFor(int recordLength) throws IOException {
+        if (writeChannel != null && writeChannel.size() > 0 && writeChannel.size() + recordLength > maxSegmentBytes) {
+            Path previous = writeSegment;
+            writeChannel.close();
+            writeChannel = null;
+            writeSegment = null;
+            if (entries.stream().noneMatch(entry -> entry.segment.equals(previous))) {
+                delete(previous);
+            }
+        }
+        if (writeChannel == null) {
+            Files.createDirectories(directory);
+            writeSegment = directory.resolve(String.format("%s%s-%06d%s", SEGMENT_PREFIX, runId, ++segmentSequence, SEGMENT_SUFFIX));
+            writeChannel = FileChannel.open(writeSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+        return writeChannel;
+    }
+
+    private static Record decode(Entry entry, ByteBuffer buffer) throws IOException {
+        byte[] bytes = buffer.array();
+        int payloadLength = buffer.getInt(0);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, RECORD_HEADER_LENGTH, payloadLength);
+        if ((int) crc.getValue() != buffer.getInt(4)) {
+            throw new IOException("Checksum mismatch");
+        }
+        int metadataLength = buffer.getInt(RECORD_HEADER_LENGTH);
+        int metadataOffset = RECORD_HEADER_LENGTH + METADATA_LENGTH_LENGTH;
+        if (metadataLength < 0 || metadataLength > payloadLength - METADATA_LENGTH_LENGTH) {
+            throw new IOException("Invalid metadata length " + metadataLength);
+        }
+        SpooledTestRun run = GSON.fromJson(new String(bytes, metadataOffset, metadataLength, StandardCharsets.UTF_8),
+                SpooledTestRun.class);
+        byte[] image = Arrays.copyOfRange(bytes, metadataOffset + metadataLength, RECORD_HEADER_LENGTH + payloadLength);
+        return new Record(run, ImageSource.ofBytes(image), entry);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == -1) {
+                throw new EOFException("Spool segment ends within a test run");
+            }
+        }
+        return buffer;
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static Path ackFile(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + ACK_SUFFIX);
+    }
+
+    private static long readAck(Path segment) throws IOException {
+        Path ackFile = ackFile(segment);
+        if (!Files.exists(ackFile)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(ackFile), StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            log.warn("Can't read progress of spool segment <{}>, replaying it from the start", segment);
+            return 0;
+        }
+    }
+
+    private static void writeAck(Path segment, long offset) throws IOException {
+        Files.write(ackFile(segment), Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void delete(Path segment) throws IOException {
+        Files.deleteIfExists(ackFile(segment));
+        Files.deleteIfExists(segment);
+    }
+}
@@ -24,6 +24,11 @@ public class PathProviderTest {
     };
   }
 
+  @Test
+  public void shouldGetTestRunsPathForBuild() {
+    assertThat(pathProvider.getTestRunsPathForBuild("some id"), is(apiUrl.concat("/test-runs?buildId=some+id")));
+  }
+
   @Test(dataProvider = "shouldGetImageUrlCases")
   public void shouldGetImageUrl(String imageName, String expectedResult) {
     String result = pathProvider.getImageUrl(imageName);
@@ -1,11 +1,14 @@
 package io.visual_regression_tracker.sdk_java;
 
+import io.visual_regression_tracker.sdk_java.compare.LocalCheckMode;
+import io.visual_regression_tracker.sdk_java.concurrent.ThreadMode;
 import org.testng.annotations.Test;
 import uk.org.webcompere.systemstubs.environment.EnvironmentVariables;
 
 import java.io.File;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 public class VisualRegressionTrackerConfigTest {
@@ -110,5 +113,74 @@ public class VisualRegressionTrackerConfigTest {
 
         assertThat(config.getEnableSoftAssert(), is(false));
         assertThat(config.getHttpTimeoutInSeconds(), is(10));
+        assertThat(config.getMaxConnections(), is(10));
+        assertThat(config.getEnableHttp2(), is(false));
+        assertThat(config.getThreadMode(), is(ThreadMode.PLATFORM));
+        assertThat(config.getEnableAdaptiveConcurrency(), is(false));
+        assertThat(config.getEnableMetricsSummary(), is(false));
+        assertThat(config.getEnableCompression(), is(false));
+        assertThat(config.getCompressionThresholdInBytes(), is(1024));
+        assertThat(config.getEnableImageOptimization(), is(false));
+        assertThat(config.getShardCount(), is(1));
+        assertThat(config.getSpoolSegmentSizeInBytes(), is(64 * 1024 * 1024));
+        assertThat(config.getEnableDeferredResults(), is(false));
+        assertThat(config.getImageBudgetInBytes(), is(0L));
+        assertThat(config.getRejectOverImageBudget(), is(false));
+        assertThat(config.getLocalCheckMode(), is(LocalCheckMode.OFF));
+        assertThat(config.getLocalCheckThreshold(), is(0.1f));
+        assertThat(config.getImageCacheDirectory(), is("build/vrt-images"));
+        assertThat(config.getImageCacheMaxSizeInBytes(), is(256L * 1024 * 1024));
+        assertThat(config.getWarmUpConnections(), is(0));
+        assertThat(config.getConnectTimeoutInMillis(), is(nullValue()));
+        assertThat(config.getEnableAdaptiveTimeouts(), is(false));
+        assertThat(config.getMinWriteTimeoutInMillis(), is(1000));
+        assertThat(config.getMinResponseTimeoutInMillis(), is(5000));
+    }
+
+    @Test
+    public void shouldReadNumericValuesFromConfigFile() {
+        File configFile = new File("src/test/resources/vrt_config_transport.json");
+
+        VisualRegressionTrackerConfig config = VisualRegressionTrackerConfig.builder()
+                .configFile(configFile)
+                .build();
+
+        assertThat(config.getHttpTimeoutInSeconds(), is(15));
+        assertThat(config.getMaxConnections(), is(4));
+        assertThat(config.getEnableHttp2(), is(true));
+        assertThat(config.getThreadMode(), is(ThreadMode.AUTO));
+        assertThat(config.getImageBudgetInBytes(), is(3L * 1024 * 1024 * 1024));
+    }
+
+    @Test
+    public void shouldReadByteSizesAboveIntRangeFromEnvironment() throws Exception {
+        EnvironmentVariables environmentVariables = new EnvironmentVariables("VRT_IMAGEBUDGETINBYTES", "4294967296")
+                .set("VRT_IMAGECACHEMAXSIZEINBYTES", "8589934592");
+
+        VisualRegressionTrackerConfig config = environmentVariables.execute(() ->
+                VisualRegressionTrackerConfig.builder()
+                        .apiUrl("http://localhost:4200")
+                        .apiKey("KEY")
+                        .project("PROJECT")
+                        .build()
+        );
+
+        assertThat(config.getImageBudgetInBytes(), is(4L * 1024 * 1024 * 1024));
+        assertThat(config.getImageCacheMaxSizeInBytes(), is(8L * 1024 * 1024 * 1024));
+    }
+
+    @Test
+    public void shouldReadThreadModeFromEnvironment() throws Exception {
+        EnvironmentVariables environmentVariables = new EnvironmentVariables("VRT_THREADMODE", "virtual");
+
+        VisualRegressionTrackerConfig config = environmentVariables.execute(() ->
+                VisualRegressionTrackerConfig.builder()
+                        .apiUrl("http://localhost:4200")
+                        .apiKey("KEY")
+                        .project("PROJECT")
+                        .build()
+        );
+
+        assertThat(config.getThreadMode(), is(ThreadMode.VIRTUAL));
     }
 }
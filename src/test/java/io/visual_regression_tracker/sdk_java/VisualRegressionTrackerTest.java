@@ -5,30 +5,72 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import com.google.gson.Gson;
+import io.visual_regression_tracker.sdk_java.compare.LocalCheckMode;
+import io.visual_regression_tracker.sdk_java.concurrent.ExecutorFactory;
+import io.visual_regression_tracker.sdk_java.concurrent.ThreadMode;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import io.visual_regression_tracker.sdk_java.metrics.HistogramMetricsListener;
+import io.visual_regression_tracker.sdk_java.metrics.MetricsListener;
+import io.visual_regression_tracker.sdk_java.metrics.Phase;
 import io.visual_regression_tracker.sdk_java.request.BuildRequest;
 import io.visual_regression_tracker.sdk_java.request.TestRunRequest;
 import io.visual_regression_tracker.sdk_java.response.BuildResponse;
 import io.visual_regression_tracker.sdk_java.response.TestRunResponse;
+import io.visual_regression_tracker.sdk_java.spool.SpooledTestRun;
+import io.visual_regression_tracker.sdk_java.spool.TestRunSpool;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import lombok.SneakyThrows;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
 import org.slf4j.LoggerFactory;
+import org.testng.SkipException;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -78,6 +120,7 @@ public class VisualRegressionTrackerTest {
     @SneakyThrows
     @AfterMethod
     public void tearDown() {
+        vrt.close();
         mockWebServer.shutdown();
         reset(vrtMocked);
     }
@@ -104,8 +147,8 @@ public class VisualRegressionTrackerTest {
         assertThat(recordedRequest.getHeader(VisualRegressionTracker.API_KEY_HEADER), is(config.getApiKey()));
         assertThat(recordedRequest.getHeader(VisualRegressionTracker.PROJECT_HEADER), is(config.getProject()));
         assertThat(recordedRequest.getBody().readUtf8(), is(gson.toJson(buildRequest)));
-        assertThat(vrt.buildId, is(BUILD_ID));
-        assertThat(vrt.projectId, is(PROJECT_ID));
+        assertThat(vrt.session.getBuildId(), is(BUILD_ID));
+        assertThat(vrt.session.getProjectId(), is(PROJECT_ID));
         assertThat(result.getId(), is(BUILD_ID));
         assertThat(result.getProjectId(), is(PROJECT_ID));
         assertThat(result.getCiBuildId(), is(CI_BUILD_ID));
@@ -113,8 +156,7 @@ public class VisualRegressionTrackerTest {
 
     @Test
     public void shouldStopBuild() throws IOException, InterruptedException {
-        vrt.buildId = BUILD_ID;
-        vrt.projectId = PROJECT_ID;
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
         BuildResponse buildResponse = BuildResponse.builder()
                 .id(BUILD_ID)
                 .passedCount(1)
@@ -139,6 +181,30 @@ public class VisualRegressionTrackerTest {
         assertThat(actualBuildResponse.getUnresolvedCount(), is(2));
     }
 
+    @Test
+    public void shouldReuseConnectionBetweenRequests() throws IOException, InterruptedException {
+        BuildResponse buildResponse = BuildResponse.builder()
+                .id(BUILD_ID)
+                .projectId(PROJECT_ID)
+                .build();
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(buildResponse)));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(buildResponse)));
+
+        vrt.start();
+        vrt.stop();
+
+        assertThat(mockWebServer.takeRequest().getSequenceNumber(), is(0));
+        assertThat(mockWebServer.takeRequest().getSequenceNumber(), is(1));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class,
+            expectedExceptionsMessageRegExp = "HTTP transport is closed")
+    public void shouldNotSendRequestsAfterClose() throws IOException, InterruptedException {
+        vrt.close();
+
+        vrt.start();
+    }
+
     @Test(expectedExceptions = TestRunException.class,
             expectedExceptionsMessageRegExp = "Visual Regression Tracker has not been started")
     public void stopShouldThrowExceptionIfNotStarted() throws IOException, InterruptedException {
@@ -179,8 +245,7 @@ public class VisualRegressionTrackerTest {
                 .status(TestRunStatus.UNRESOLVED)
                 .build();
         mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
-        vrt.buildId = BUILD_ID;
-        vrt.projectId = PROJECT_ID;
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
 
         TestRunResponse result = vrt.submitTestRun(NAME, IMAGE_BASE_64, testRunOptions);
 
@@ -196,8 +261,8 @@ public class VisualRegressionTrackerTest {
     public void submitTestRunShouldThrowIfNotStarted() throws IOException, InterruptedException {
         when(vrtMocked.isStarted()).thenReturn(false);
 
-        doCallRealMethod().when(vrtMocked).submitTestRun(anyString(), any(), any());
-        vrtMocked.submitTestRun("name", null, null);
+        doCallRealMethod().when(vrtMocked).submitTestRun(anyString(), (String) any(), any());
+        vrtMocked.submitTestRun("name", (String) null, null);
     }
 
     @DataProvider(name = "trackErrorCases")
@@ -326,6 +391,973 @@ public class VisualRegressionTrackerTest {
         verify(vrtMocked, times(1)).track(anyString(), anyString(), any(TestRunOptions.class));
     }
 
+    @DataProvider(name = "binaryImageCases")
+    public Object[][] binaryImageCases() {
+        return new Object[][]{{"bytes"}, {"path"}, {"stream"}};
+    }
+
+    @Test(dataProvider = "binaryImageCases")
+    public void shouldTrackBinaryImage(String imageType) throws IOException, InterruptedException {
+        Path imagePath = Paths.get("src/test/resources/home_page.png");
+        byte[] image = Files.readAllBytes(imagePath);
+        TestRunResponse testRunResponse = TestRunResponse.builder()
+                .status(TestRunStatus.OK)
+                .build();
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        switch (imageType) {
+            case "bytes":
+                vrt.track(NAME, image);
+                break;
+            case "path":
+                vrt.track(NAME, imagePath);
+                break;
+            default:
+                vrt.track(NAME, new ByteArrayInputStream(image));
+                break;
+        }
+
+        TestRunRequest sentRequest = gson.fromJson(mockWebServer.takeRequest().getBody().readUtf8(), TestRunRequest.class);
+        assertThat(sentRequest.getName(), is(NAME));
+        assertThat(sentRequest.getImageBase64(), is(Base64.getEncoder().encodeToString(image)));
+    }
+
+    @Test
+    public void shouldTrackWithMultipartUpload() throws IOException, InterruptedException {
+        byte[] image = Files.readAllBytes(Paths.get("src/test/resources/home_page.png"));
+        TestRunResponse testRunResponse = TestRunResponse.builder()
+                .status(TestRunStatus.OK)
+                .build();
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
+        config.setEnableMultipartUpload(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(NAME, image, TestRunOptions.builder().os("OS").build());
+
+        RecordedRequest request = mockWebServer.takeRequest();
+        String body = request.getBody().readString(StandardCharsets.ISO_8859_1);
+        assertThat(request.getPath(), is("//test-runs/multipart"));
+        assertThat(request.getHeader("Content-Type"), containsString("multipart/form-data; boundary="));
+        assertThat(body, containsString("name=\"name\"\r\n\r\n" + NAME + "\r\n"));
+        assertThat(body, containsString("name=\"os\"\r\n\r\nOS\r\n"));
+        assertThat(body, containsString("name=\"buildId\"\r\n\r\n" + BUILD_ID + "\r\n"));
+        assertThat(body, containsString(new String(image, StandardCharsets.ISO_8859_1)));
+        assertThat(request.getBodySize() < Base64.getEncoder().encode(image).length, is(true));
+    }
+
+    @Test
+    public void shouldSendNameWithLineBreakAsJson() throws IOException, InterruptedException {
+        String name = "Test \"name\"\r\n--with line break";
+        TestRunResponse testRunResponse = TestRunResponse.builder()
+                .status(TestRunStatus.OK)
+                .build();
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
+        config.setEnableMultipartUpload(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(name, IMAGE_BASE_64);
+        vrt.track("Test \"name\"", IMAGE_BASE_64);
+
+        RecordedRequest jsonRequest = mockWebServer.takeRequest();
+        RecordedRequest multipartRequest = mockWebServer.takeRequest();
+        assertThat(jsonRequest.getPath(), is("//test-runs"));
+        assertThat(gson.fromJson(jsonRequest.getBody().readUtf8(), TestRunRequest.class).getName(), is(name));
+        assertThat(multipartRequest.getPath(), is("//test-runs/multipart"));
+        assertThat(multipartRequest.getBody().readUtf8(), containsString("name=\"name\"\r\n\r\nTest \"name\"\r\n"));
+    }
+
+    @Test
+    public void shouldFallbackToJsonIfMultipartNotSupported() throws IOException, InterruptedException {
+        TestRunResponse testRunResponse = TestRunResponse.builder()
+                .status(TestRunStatus.OK)
+                .build();
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
+        config.setEnableMultipartUpload(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(NAME, IMAGE_BASE_64);
+        vrt.track(NAME, IMAGE_BASE_64);
+
+        assertThat(mockWebServer.takeRequest().getPath(), is("//test-runs/multipart"));
+        assertThat(mockWebServer.takeRequest().getPath(), is("//test-runs"));
+        assertThat(mockWebServer.takeRequest().getPath(), is("//test-runs"));
+    }
+
+    @Test
+    public void shouldSkipUploadOfAcceptedImage() throws IOException, InterruptedException {
+        TestRunResponse okResponse = TestRunResponse.builder()
+                .status(TestRunStatus.OK)
+                .build();
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(okResponse)));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(okResponse)));
+        config.setDedupIndexFile(Files.createTempDirectory("vrt").resolve("dedup.json").toString());
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(NAME, IMAGE_BASE_64);
+        TestRunResult unchanged = vrt.track(NAME, IMAGE_BASE_64);
+        vrt.track(NAME, "b3RoZXI=");
+
+        assertThat(unchanged.getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+        assertThat(mockWebServer.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldSkipUploadOfImageMatchingBaselineLocally() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .baselineName("baseline.png")
+                .status(TestRunStatus.OK)
+                .build())));
+        mockWebServer.enqueue(new MockResponse().setBody(new Buffer().write(png(0))));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.UNRESOLVED)
+                .build())));
+        Path directory = Files.createTempDirectory("vrt");
+        config.setDedupIndexFile(directory.resolve("dedup.json").toString());
+        config.setImageCacheDirectory(directory.resolve("images").toString());
+        config.setEnableSoftAssert(true);
+        config.setLocalCheckMode(LocalCheckMode.SKIP_MATCHING);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        TestRunOptions testRunOptions = TestRunOptions.builder().diffTollerancePercent(1f).build();
+
+        vrt.track(NAME, png(0), testRunOptions);
+        TestRunResult matching = vrt.track(NAME, png(1), testRunOptions);
+        vrt.track(NAME, png(2), testRunOptions);
+
+        assertThat(matching.getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+        assertThat(matching.getTestRunResponse().getPixelMisMatchCount(), is(1));
+        assertThat(mockWebServer.takeRequest().getPath(), is("//test-runs"));
+        assertThat(mockWebServer.takeRequest().getPath(), is("//baseline.png"));
+        assertThat(mockWebServer.takeRequest().getPath(), is("//test-runs"));
+        assertThat(mockWebServer.getRequestCount(), is(3));
+    }
+
+    @Test(expectedExceptions = TestRunException.class,
+            expectedExceptionsMessageRegExp = "^Difference found: " + NAME + "$")
+    public void shouldFailFastOnImageDifferentFromBaselineLocally() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .baselineName("baseline.png")
+                .status(TestRunStatus.OK)
+                .build())));
+        mockWebServer.enqueue(new MockResponse().setBody(new Buffer().write(png(0))));
+        Path directory = Files.createTempDirectory("vrt");
+        config.setDedupIndexFile(directory.resolve("dedup.json").toString());
+        config.setImageCacheDirectory(directory.resolve("images").toString());
+        config.setLocalCheckMode(LocalCheckMode.FAIL_FAST);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(NAME, png(0));
+        vrt.track(NAME, png(10));
+    }
+
+    @Test
+    public void shouldRevalidateImageCachedByEarlierTracker() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setHeader("ETag", "\"etag\"").setBody("image"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+        config.setImageCacheDirectory(Files.createTempDirectory("vrt").toString());
+        vrt = new VisualRegressionTracker(config);
+        vrt.getImage("image.png");
+        vrt.close();
+        vrt = new VisualRegressionTracker(config);
+
+        Path image = vrt.getImage("image.png");
+        vrt.getImage("image.png");
+
+        assertThat(new String(Files.readAllBytes(image), StandardCharsets.UTF_8), is("image"));
+        assertThat(mockWebServer.takeRequest().getPath(), is("//image.png"));
+        assertThat(mockWebServer.takeRequest().getHeader("If-None-Match"), is("\"etag\""));
+        assertThat(mockWebServer.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldRetryStopOnServiceUnavailable() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0"));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder().id(BUILD_ID).build())));
+        config.setStopMaxAttempts(2);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        BuildResponse result = vrt.stop();
+
+        assertThat(result.getId(), is(BUILD_ID));
+        assertThat(mockWebServer.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldWarmUpConnectionsWhileStarting() throws Exception {
+        AtomicInteger warmUpRequests = new AtomicInteger();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if ("GET".equals(request.getMethod())) {
+                    warmUpRequests.incrementAndGet();
+                    return new MockResponse().setResponseCode(404);
+                }
+                return new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                        .id(BUILD_ID).projectId(PROJECT_ID).build()));
+            }
+        });
+        config.setWarmUpConnections(3);
+        vrt = new VisualRegressionTracker(config);
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+        vrt.addMetricsListener(metrics);
+
+        BuildResponse result = vrt.start();
+        vrt.warmUp.get(5, TimeUnit.SECONDS);
+
+        assertThat(result.getId(), is(BUILD_ID));
+        assertThat(warmUpRequests.get(), is(3));
+        assertThat(metrics.getHistogram(Phase.WARM_UP).getCount(), is(1L));
+    }
+
+    @Test
+    public void startShouldNotWaitForWarmUp() throws Exception {
+        CountDownLatch serverAnswers = new CountDownLatch(1);
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if ("GET".equals(request.getMethod())) {
+                    serverAnswers.await(5, TimeUnit.SECONDS);
+                    return new MockResponse().setResponseCode(404);
+                }
+                return new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                        .id(BUILD_ID).projectId(PROJECT_ID).build()));
+            }
+        });
+        config.setWarmUpConnections(2);
+        vrt = new VisualRegressionTracker(config);
+
+        BuildResponse result = vrt.start();
+        boolean warmUpRunning = !vrt.warmUp.isDone();
+        serverAnswers.countDown();
+        vrt.warmUp.get(5, TimeUnit.SECONDS);
+
+        assertThat(result.getId(), is(BUILD_ID));
+        assertThat(warmUpRunning, is(true));
+    }
+
+    @Test
+    public void shouldReportMetricsPerPhase() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                .id(BUILD_ID).projectId(PROJECT_ID).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder().id(BUILD_ID).build())));
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+        List<String> stoppedBuilds = new ArrayList<>();
+        vrt.addMetricsListener(metrics);
+        vrt.addMetricsListener(new MetricsListener() {
+            @Override
+            public void onStop(String buildId) {
+                stoppedBuilds.add(buildId);
+            }
+        });
+
+        vrt.start();
+        vrt.track(NAME, IMAGE_BASE_64);
+        vrt.stop();
+
+        assertThat(metrics.getHistogram(Phase.START).getCount(), is(1L));
+        assertThat(metrics.getHistogram(Phase.SUBMIT_TEST_RUN).getCount(), is(1L));
+        assertThat(metrics.getHistogram(Phase.GET_RESPONSE).getCount(), is(3L));
+        assertThat(metrics.getHistogram(Phase.HANDLE_RESPONSE).getCount(), is(3L));
+        assertThat(metrics.getHistogram(Phase.STOP).getCount(), is(1L));
+        assertThat(metrics.getStatusCodes().get(200), is(3L));
+        assertThat(metrics.getTestRunStatuses().get(TestRunStatus.OK), is(1L));
+        assertThat(metrics.getRequestBytes() > IMAGE_BASE_64.length(), is(true));
+        assertThat(metrics.getResponseBytes() > 0, is(true));
+        assertThat(stoppedBuilds, is(Arrays.asList(BUILD_ID)));
+    }
+
+    @Test
+    public void shouldKeepConcurrencyLimitAtMaxConnectionsByDefault() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0"));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder().id(BUILD_ID).build())));
+        config.setStopMaxAttempts(2);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.stop();
+
+        assertThat(vrt.getConcurrencyLimit(), is(config.getMaxConnections()));
+    }
+
+    @Test
+    public void shouldShrinkAdaptiveConcurrencyLimitOnServiceUnavailable() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0"));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder().id(BUILD_ID).build())));
+        config.setStopMaxAttempts(2);
+        config.setEnableAdaptiveConcurrency(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        int initialLimit = vrt.getConcurrencyLimit();
+
+        BuildResponse result = vrt.stop();
+
+        assertThat(result.getId(), is(BUILD_ID));
+        assertThat(vrt.getConcurrencyLimit(), is(initialLimit / 2));
+    }
+
+    @Test
+    public void shouldCompressRequestBodiesAboveThreshold() throws IOException, InterruptedException {
+        byte[] image = Files.readAllBytes(Paths.get("src/test/resources/home_page.png"));
+        List<RecordedRequest> requests = new ArrayList<>();
+        List<String> bodies = new ArrayList<>();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                requests.add(request);
+                bodies.add(gunzip(request.getBody().readByteArray()));
+                return new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                        .status(TestRunStatus.OK).build()));
+            }
+        });
+        config.setEnableCompression(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+        vrt.addMetricsListener(metrics);
+
+        TestRunResult result = vrt.track(NAME, image);
+
+        assertThat(result.getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+        assertThat(requests.get(0).getHeader("Content-Encoding"), is("gzip"));
+        assertThat(requests.get(0).getHeader("Accept-Encoding"), is("gzip"));
+        TestRunRequest testRunRequest = gson.fromJson(bodies.get(0), TestRunRequest.class);
+        assertThat(testRunRequest.getImageBase64(), is(Base64.getEncoder().encodeToString(image)));
+        long uncompressedBytes = bodies.get(0).getBytes(StandardCharsets.UTF_8).length;
+        assertThat(metrics.getRequestBytes(), is(requests.get(0).getBodySize()));
+        assertThat(metrics.getRequestBytes() < uncompressedBytes * 3 / 4, is(true));
+    }
+
+    @Test
+    public void shouldNotCompressRequestBodiesBelowThreshold() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        config.setEnableCompression(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(NAME, IMAGE_BASE_64);
+
+        RecordedRequest request = mockWebServer.takeRequest();
+        assertThat(request.getHeader("Content-Encoding"), is((String) null));
+        assertThat(gson.fromJson(request.getBody().readUtf8(), TestRunRequest.class).getImageBase64(), is(IMAGE_BASE_64));
+    }
+
+    @Test
+    public void shouldDecodeGzipResponse() throws IOException, InterruptedException {
+        TestRunResponse testRunResponse = TestRunResponse.builder()
+                .imageName("imageName")
+                .status(TestRunStatus.OK)
+                .build();
+        mockWebServer.enqueue(new MockResponse()
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(new Buffer().write(gzip(gson.toJson(testRunResponse)))));
+        config.setEnableCompression(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        TestRunResult result = vrt.track(NAME, IMAGE_BASE_64);
+
+        assertThat(result.getTestRunResponse().getImageName(), is("imageName"));
+    }
+
+    @Test
+    public void shouldResendUncompressedWhenCompressionIsNotSupported() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(415));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        config.setEnableCompression(true);
+        config.setCompressionThresholdInBytes(0);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(NAME, IMAGE_BASE_64);
+        vrt.trackAsync(NAME, IMAGE_BASE_64).join();
+
+        assertThat(mockWebServer.takeRequest().getHeader("Content-Encoding"), is("gzip"));
+        RecordedRequest resent = mockWebServer.takeRequest();
+        assertThat(resent.getHeader("Content-Encoding"), is((String) null));
+        assertThat(gson.fromJson(resent.getBody().readUtf8(), TestRunRequest.class).getImageBase64(), is(IMAGE_BASE_64));
+        assertThat(mockWebServer.takeRequest().getHeader("Content-Encoding"), is((String) null));
+    }
+
+    @Test
+    public void shouldUploadOptimizedImage() throws Exception {
+        byte[] image = Files.readAllBytes(Paths.get("src/test/resources/home_page.png"));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        config.setEnableImageOptimization(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(NAME, image);
+        vrt.trackAsync(NAME, ImageSource.ofBytes(image), TestRunOptions.builder().build()).get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 2; i++) {
+            TestRunRequest request = gson.fromJson(mockWebServer.takeRequest().getBody().readUtf8(), TestRunRequest.class);
+            assertThat(Base64.getDecoder().decode(request.getImageBase64()).length < image.length, is(true));
+        }
+    }
+
+    @Test
+    public void shouldShareOneBuildBetweenConcurrentTests() throws Exception {
+        int threads = 16;
+        int testRunsPerThread = 25;
+        AtomicInteger startedBuilds = new AtomicInteger();
+        AtomicInteger stoppedBuilds = new AtomicInteger();
+        List<TestRunRequest> testRunRequests = Collections.synchronizedList(new ArrayList<>());
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if ("PATCH".equals(request.getMethod())) {
+                    stoppedBuilds.incrementAndGet();
+                    return new MockResponse().setBody(gson.toJson(BuildResponse.builder().id(BUILD_ID).build()));
+                }
+                if (Objects.requireNonNull(request.getPath()).endsWith("/builds")) {
+                    startedBuilds.incrementAndGet();
+                    return new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                            .id(BUILD_ID).projectId(PROJECT_ID).build()));
+                }
+                testRunRequests.add(gson.fromJson(request.getBody().readUtf8(), TestRunRequest.class));
+                return new MockResponse().setBody(gson.toJson(TestRunResponse.builder().status(TestRunStatus.OK).build()));
+            }
+        });
+        config.setMaxConnections(threads);
+        vrt = new VisualRegressionTracker(config);
+        ExecutorService testThreads = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch tracked = new CountDownLatch(threads);
+
+        List<Future<BuildResponse>> stopResults = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < threads; thread++) {
+                String os = "os" + thread;
+                stopResults.add(testThreads.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    vrt.start();
+                    TestRunContext.setDefaultOptions(TestRunOptions.builder().os(os).build());
+                    try {
+                        for (int index = 0; index < testRunsPerThread; index++) {
+                            vrt.track(os + "-" + index, IMAGE_BASE_64);
+                        }
+                    } finally {
+                        TestRunContext.clear();
+                    }
+                    tracked.countDown();
+                    tracked.await();
+                    return vrt.stop();
+                }));
+            }
+            for (Future<BuildResponse> stopResult : stopResults) {
+                assertThat(stopResult.get(30, TimeUnit.SECONDS), is(stopResults.get(0).get()));
+            }
+        } finally {
+            testThreads.shutdown();
+        }
+
+        assertThat(startedBuilds.get(), is(1));
+        assertThat(stoppedBuilds.get(), is(1));
+        assertThat(testRunRequests.size(), is(threads * testRunsPerThread));
+        for (TestRunRequest testRunRequest : testRunRequests) {
+            assertThat(testRunRequest.getBuildId(), is(BUILD_ID));
+            assertThat(testRunRequest.getProjectId(), is(PROJECT_ID));
+            assertThat(testRunRequest.getName(), startsWith(testRunRequest.getOs() + "-"));
+        }
+        assertThat(vrt.isStarted(), is(false));
+    }
+
+    @Test
+    public void stopShouldHappenOnce() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder().id(BUILD_ID).build())));
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        BuildResponse result = vrt.stop();
+
+        assertThat(vrt.stop(), is(result));
+        assertThat(vrt.isStarted(), is(false));
+        assertThat(mockWebServer.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldKeepSessionIfStopFails() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody("error"));
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        try {
+            vrt.stop();
+        } catch (TestRunException ex) {
+            assertThat(ex.getMessage(), is("error"));
+        }
+
+        assertThat(vrt.isStarted(), is(true));
+    }
+
+    @Test
+    public void trackShouldUseDefaultOptionsOfCurrentThread() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        TestRunContext.setDefaultOptions(TestRunOptions.builder().browser("firefox").build());
+        try {
+            vrt.track(NAME, IMAGE_BASE_64);
+            vrt.track(NAME, IMAGE_BASE_64, TestRunOptions.builder().browser("chrome").build());
+        } finally {
+            TestRunContext.clear();
+        }
+
+        assertThat(gson.fromJson(mockWebServer.takeRequest().getBody().readUtf8(), TestRunRequest.class).getBrowser(), is("firefox"));
+        assertThat(gson.fromJson(mockWebServer.takeRequest().getBody().readUtf8(), TestRunRequest.class).getBrowser(), is("chrome"));
+        assertThat(TestRunContext.getDefaultOptions().getBrowser(), is((String) null));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+            expectedExceptionsMessageRegExp = "sharedBuildFile requires ciBuildId.*")
+    public void sharedBuildShouldRequireCiBuildId() throws IOException {
+        config.setSharedBuildFile(Files.createTempDirectory("vrt-shared").resolve("build.json").toString());
+        config.setCiBuildId(null);
+
+        new VisualRegressionTracker(config);
+    }
+
+    @Test
+    public void shouldStopSharedBuildOnlyAfterLastShard() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                .id(BUILD_ID).projectId(PROJECT_ID).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                .id(BUILD_ID).status("passed").build())));
+        config.setSharedBuildFile(Files.createTempDirectory("vrt-shared").resolve("build.json").toString());
+        config.setShardCount(2);
+        vrt = new VisualRegressionTracker(config);
+
+        try (VisualRegressionTracker otherShard = new VisualRegressionTracker(config)) {
+            assertThat(vrt.start().getId(), is(BUILD_ID));
+            assertThat(otherShard.start().getId(), is(BUILD_ID));
+
+            assertThat(otherShard.stop().getStatus(), is((String) null));
+            assertThat(mockWebServer.getRequestCount(), is(1));
+            assertThat(vrt.stop().getStatus(), is("passed"));
+        }
+
+        assertThat(mockWebServer.takeRequest().getMethod(), is("POST"));
+        assertThat(mockWebServer.takeRequest().getMethod(), is("PATCH"));
+    }
+
+    @Test
+    public void shouldUploadSpooledTestRunsBeforeStop() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .url("https://someurl.com/test/2").status(TestRunStatus.UNRESOLVED).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                .id(BUILD_ID).status("unresolved").build())));
+        config.setSpoolDirectory(Files.createTempDirectory("vrt-spool").toString());
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        byte[] image = "image".getBytes(StandardCharsets.UTF_8);
+        assertThat(vrt.track("first", image).getTestRunResponse().getStatus(), is((TestRunStatus) null));
+        assertThat(vrt.track("second", image).getTestRunResponse().getStatus(), is((TestRunStatus) null));
+        String exceptionMessage = "";
+        try {
+            vrt.stop();
+        } catch (TestRunException ex) {
+            exceptionMessage = ex.getMessage();
+        }
+
+        assertThat(exceptionMessage, is("Difference found: https://someurl.com/test/2"));
+        assertThat(gson.fromJson(mockWebServer.takeRequest().getBody().readUtf8(), TestRunRequest.class).getName(), is("first"));
+        assertThat(gson.fromJson(mockWebServer.takeRequest().getBody().readUtf8(), TestRunRequest.class).getName(), is("second"));
+        assertThat(mockWebServer.takeRequest().getMethod(), is("PATCH"));
+    }
+
+    @Test
+    public void shouldReportSpooledTestRunWithUnreadableResponse() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody("<html>"));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                .id(BUILD_ID).status("passed").build())));
+        config.setSpoolDirectory(Files.createTempDirectory("vrt-spool").toString());
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(NAME, "image".getBytes(StandardCharsets.UTF_8));
+        String exceptionMessage = "";
+        try {
+            vrt.stop();
+        } catch (TestRunException ex) {
+            exceptionMessage = ex.getMessage();
+        }
+
+        assertThat(exceptionMessage, startsWith("Spooled test run <" + NAME + "> could not be uploaded"));
+        assertThat(vrt.spoolDrainer.isAlive(), is(true));
+    }
+
+    @Test
+    public void shouldReplaySpoolLeftByCrashedRun() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                .id(BUILD_ID).status("passed").build())));
+        Path spoolDirectory = Files.createTempDirectory("vrt-spool");
+        TestRunRequest request = TestRunRequest.builder().projectId(PROJECT_ID).buildId(BUILD_ID).name(NAME).build();
+        byte[] image = "image".getBytes(StandardCharsets.UTF_8);
+        new TestRunSpool(spoolDirectory, Long.MAX_VALUE).append(new SpooledTestRun(request, null, null), ImageSource.ofBytes(image));
+
+        List<TestRunResult> results = vrt.replaySpool(spoolDirectory, true);
+
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+        TestRunRequest sentRequest = gson.fromJson(mockWebServer.takeRequest().getBody().readUtf8(), TestRunRequest.class);
+        assertThat(sentRequest.getBuildId(), is(BUILD_ID));
+        assertThat(sentRequest.getImageBase64(), is(Base64.getEncoder().encodeToString(image)));
+        assertThat(mockWebServer.takeRequest().getMethod(), is("PATCH"));
+        assertThat(TestRunSpool.segments(spoolDirectory).size(), is(0));
+    }
+
+    @Test
+    public void shouldReportDeferredResultsOfBuildOnStop() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.UNRESOLVED).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                .id(BUILD_ID).unresolvedCount(1).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(Arrays.asList(
+                TestRunResponse.builder().name("other").status(TestRunStatus.OK).build(),
+                TestRunResponse.builder().name(NAME).status(TestRunStatus.UNRESOLVED).build()))));
+        config.setEnableDeferredResults(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        TestRunResult result = vrt.track(NAME, IMAGE_BASE_64);
+        String exceptionMessage = "";
+        try {
+            vrt.stop();
+        } catch (TestRunException ex) {
+            exceptionMessage = ex.getMessage();
+        }
+
+        assertThat(result.getTestRunResponse().getStatus(), is((TestRunStatus) null));
+        assertThat(exceptionMessage, is("Difference found: " + NAME));
+        assertThat(mockWebServer.takeRequest().getMethod(), is("POST"));
+        assertThat(mockWebServer.takeRequest().getMethod(), is("PATCH"));
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        assertThat(recordedRequest.getMethod(), is("GET"));
+        assertThat(recordedRequest.getPath(), is("//test-runs?buildId=" + BUILD_ID));
+    }
+
+    @Test
+    public void shouldNotFetchDeferredResultsOfPassedBuild() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder()
+                .id(BUILD_ID).passedCount(1).build())));
+        config.setEnableDeferredResults(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.track(NAME, IMAGE_BASE_64);
+        vrt.stop();
+
+        assertThat(mockWebServer.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void shouldNotRetryTrackOnBadGateway() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(502).setBody("Bad Gateway"));
+        config.setTrackMaxAttempts(3);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        String exceptionMessage = "";
+        try {
+            vrt.track(NAME, IMAGE_BASE_64);
+        } catch (TestRunException ex) {
+            exceptionMessage = ex.getMessage();
+        }
+
+        assertThat(exceptionMessage, is("Bad Gateway"));
+        assertThat(mockWebServer.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void shouldRetryTrackAsyncOnTooManyRequests() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(429));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder().status(TestRunStatus.OK).build())));
+        config.setTrackMaxAttempts(2);
+        config.setRetryBackoffInMillis(1);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        TestRunResult result = vrt.trackAsync(NAME, IMAGE_BASE_64).get(5, TimeUnit.SECONDS);
+
+        assertThat(result.getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+        assertThat(mockWebServer.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void trackAllShouldPreserveOrder() throws IOException, InterruptedException {
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                TestRunRequest testRunRequest = gson.fromJson(request.getBody().readUtf8(), TestRunRequest.class);
+                int index = Integer.parseInt(testRunRequest.getName());
+                TestRunResponse testRunResponse = TestRunResponse.builder()
+                        .imageName(testRunRequest.getName())
+                        .status(TestRunStatus.OK)
+                        .build();
+                return new MockResponse()
+                        .setBodyDelay((10 - index) * 10L, TimeUnit.MILLISECONDS)
+                        .setBody(gson.toJson(testRunResponse));
+            }
+        });
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        List<Screenshot> screenshots = IntStream.range(0, 10)
+                .mapToObj(index -> Screenshot.builder()
+                        .name(String.valueOf(index))
+                        .image(ImageSource.ofBase64(IMAGE_BASE_64))
+                        .build())
+                .collect(Collectors.toList());
+
+        List<TestRunResult> results = vrt.trackAll(screenshots, 4);
+
+        assertThat(results.stream().map(result -> result.getTestRunResponse().getImageName()).collect(Collectors.toList()),
+                is(screenshots.stream().map(Screenshot::getName).collect(Collectors.toList())));
+        assertThat(mockWebServer.getRequestCount(), is(10));
+    }
+
+    @Test
+    public void shouldHandleThousandsOfConcurrentSubmissions() throws Exception {
+        int submissions = 1000;
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                        .status(TestRunStatus.OK)
+                        .build()));
+            }
+        });
+        config.setThreadMode(ThreadMode.AUTO);
+        config.setMaxAsyncInFlight(submissions);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        ExecutorService callers = ExecutorFactory.newCachedExecutor(ThreadMode.AUTO, "caller");
+
+        try {
+            List<CompletableFuture<TestRunResult>> asyncResults = IntStream.range(0, submissions)
+                    .mapToObj(index -> vrt.trackAsync(NAME + index, IMAGE_BASE_64))
+                    .collect(Collectors.toList());
+            List<Future<TestRunResult>> syncResults = new ArrayList<>();
+            for (int index = 0; index < submissions; index++) {
+                String name = NAME + index;
+                syncResults.add(callers.submit(() -> vrt.track(name, IMAGE_BASE_64)));
+            }
+
+            for (CompletableFuture<TestRunResult> result : asyncResults) {
+                assertThat(result.get(30, TimeUnit.SECONDS).getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+            }
+            for (Future<TestRunResult> result : syncResults) {
+                assertThat(result.get(30, TimeUnit.SECONDS).getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+            }
+        } finally {
+            callers.shutdown();
+        }
+
+        assertThat(mockWebServer.getRequestCount(), is(2 * submissions));
+        long asyncPlatformThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("vrt-async"))
+                .count();
+        assertThat(asyncPlatformThreads <= config.getAsyncThreads(), is(true));
+    }
+
+    @Test
+    public void shouldNotStarveVirtualThreadsWaitingForConnections() throws Exception {
+        if (!ExecutorFactory.isVirtualThreadSupported()) {
+            throw new SkipException("Runtime does not support virtual threads");
+        }
+        // far more callers blocked on the connection limit than carrier threads,
+        // including the up to 256 the scheduler adds while threads are pinned
+        int submissions = 512;
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                        .status(TestRunStatus.OK)
+                        .build()));
+            }
+        });
+        config.setThreadMode(ThreadMode.VIRTUAL);
+        config.setMaxConnections(4);
+        config.setMaxAsyncInFlight(submissions);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        ExecutorService callers = ExecutorFactory.newCachedExecutor(ThreadMode.VIRTUAL, "caller");
+
+        try {
+            List<Future<TestRunResult>> results = new ArrayList<>();
+            for (int index = 0; index < submissions; index++) {
+                String name = NAME + index;
+                results.add(callers.submit(() -> vrt.track(name, IMAGE_BASE_64)));
+                results.add(vrt.trackAsync(name, IMAGE_BASE_64));
+            }
+
+            for (Future<TestRunResult> result : results) {
+                assertThat(result.get(60, TimeUnit.SECONDS).getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+            }
+        } finally {
+            callers.shutdown();
+        }
+        assertThat(mockWebServer.getRequestCount(), is(2 * submissions));
+    }
+
+    @Test
+    public void trackAllShouldAggregateFailures() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .url("https://someurl.com/test/1").status(TestRunStatus.NEW).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .url("https://someurl.com/test/3").status(TestRunStatus.UNRESOLVED).build())));
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        List<Screenshot> screenshots = IntStream.range(0, 3)
+                .mapToObj(index -> Screenshot.builder()
+                        .name(String.valueOf(index))
+                        .image(ImageSource.ofBase64(IMAGE_BASE_64))
+                        .build())
+                .collect(Collectors.toList());
+
+        String exceptionMessage = "";
+        try {
+            vrt.trackAll(screenshots, 1);
+        } catch (TestRunException ex) {
+            exceptionMessage = ex.getMessage();
+        }
+
+        assertThat(exceptionMessage, is("No baseline: https://someurl.com/test/1\n" +
+                "Difference found: https://someurl.com/test/3"));
+    }
+
+    @Test
+    public void shouldTrackAsync() throws Exception {
+        TestRunResponse testRunResponse = TestRunResponse.builder()
+                .imageName("imageName")
+                .status(TestRunStatus.OK)
+                .build();
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        TestRunResult result = vrt.trackAsync(NAME, IMAGE_BASE_64).get(5, TimeUnit.SECONDS);
+
+        RecordedRequest request = mockWebServer.takeRequest();
+        assertThat(request.getBody().readUtf8(), containsString(IMAGE_BASE_64));
+        assertThat(result.getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+        assertThat(result.getImageUrl(), is(mockWebServer.url("/").toString().concat("/imageName")));
+    }
+
+    @Test
+    public void shouldReleaseImageBudgetOnceTestRunCompletes() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())));
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        vrt.trackAsync(NAME, ImageSource.ofBytes(new byte[1000]), TestRunOptions.builder().build()).get(5, TimeUnit.SECONDS);
+
+        assertThat(vrt.getImageBudgetUsage(), is(0L));
+        assertThat(vrt.getImageBudgetPeakUsage(), is(1000L));
+    }
+
+    @Test
+    public void trackAsyncShouldRejectImageAboveBudget() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.OK).build())).setBodyDelay(500, TimeUnit.MILLISECONDS));
+        config.setImageBudgetInBytes(1500);
+        config.setRejectOverImageBudget(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        CompletableFuture<TestRunResult> first = vrt.trackAsync(NAME, ImageSource.ofBytes(new byte[1000]), TestRunOptions.builder().build());
+
+        String exceptionMessage = "";
+        try {
+            vrt.trackAsync(NAME, ImageSource.ofBytes(new byte[1000]), TestRunOptions.builder().build());
+        } catch (TestRunException ex) {
+            exceptionMessage = ex.getMessage();
+        }
+
+        assertThat(exceptionMessage, startsWith("Image of 1000 bytes exceeds the image budget of 1500 bytes"));
+        assertThat(first.get(5, TimeUnit.SECONDS).getTestRunResponse().getStatus(), is(TestRunStatus.OK));
+        assertThat(mockWebServer.getRequestCount(), is(1));
+    }
+
+    @Test(dataProvider = "trackErrorCases")
+    public void trackAsyncShouldCompleteExceptionally(TestRunResponse testRunResponse, String expectedExceptionMessage)
+            throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        CompletableFuture<TestRunResult> result = vrt.trackAsync(NAME, IMAGE_BASE_64);
+
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            throw new AssertionError("TestRunException expected");
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause(), instanceOf(TestRunException.class));
+            assertThat(ex.getCause().getMessage(), is(expectedExceptionMessage));
+        }
+    }
+
+    @Test(dataProvider = "trackErrorCases")
+    public void trackAsyncShouldCompleteWithSoftAssert(TestRunResponse testRunResponse, String expectedExceptionMessage)
+            throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(testRunResponse)));
+        config.setEnableSoftAssert(true);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        TestRunResult result = vrt.trackAsync(NAME, IMAGE_BASE_64).get(5, TimeUnit.SECONDS);
+
+        assertThat(result.getTestRunResponse().getStatus(), is(testRunResponse.getStatus()));
+    }
+
+    @Test
+    public void stopShouldWaitForPendingTrackAsync() throws Exception {
+        TestRunResponse testRunResponse = TestRunResponse.builder()
+                .status(TestRunStatus.OK)
+                .build();
+        mockWebServer.enqueue(new MockResponse()
+                .setBodyDelay(300, TimeUnit.MILLISECONDS)
+                .setBody(gson.toJson(testRunResponse)));
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(BuildResponse.builder().id(BUILD_ID).build())));
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+
+        CompletableFuture<TestRunResult> result = vrt.trackAsync(NAME, IMAGE_BASE_64);
+        vrt.stop();
+
+        assertThat(result.isDone(), is(true));
+        assertThat(mockWebServer.takeRequest().getMethod(), is("POST"));
+        assertThat(mockWebServer.takeRequest().getMethod(), is("PATCH"));
+    }
+
+    @Test(expectedExceptions = TestRunException.class,
+            expectedExceptionsMessageRegExp = "Visual Regression Tracker has not been started")
+    public void trackAsyncShouldThrowIfNotStarted() {
+        vrt.trackAsync(NAME, IMAGE_BASE_64);
+    }
+
     @DataProvider(name = "shouldReturnIsStartedCases")
     public Object[][] shouldReturnIsStartedCases() {
         return new Object[][]{
@@ -338,8 +1370,7 @@ public class VisualRegressionTrackerTest {
 
     @Test(dataProvider = "shouldReturnIsStartedCases")
     public void shouldReturnIsStarted(String buildId, String projectId, boolean expectedResult) {
-        vrt.buildId = buildId;
-        vrt.projectId = projectId;
+        vrt.session = new TrackerSession(buildId, projectId);
 
         boolean result = vrt.isStarted();
 
@@ -383,13 +1414,16 @@ public class VisualRegressionTrackerTest {
 
         mockWebServer.takeRequest();
 
-        assertThat(vrt.buildId, is(BUILD_ID));
-        assertThat(vrt.projectId, is(PROJECT_ID));
+        assertThat(vrt.session.getBuildId(), is(BUILD_ID));
+        assertThat(vrt.session.getProjectId(), is(PROJECT_ID));
     }
 
-    @Test(expectedExceptions = UnsupportedOperationException.class, expectedExceptionsMessageRegExp = "This method is not yet supported.")
-    public void methodNotSupported() {
-        vrt.getRequest(METHOD.GET, null, null);
+    @Test
+    public void shouldBuildGetRequest() {
+        HttpRequest request = vrt.getRequest(METHOD.GET, HttpRequest.BodyPublishers.noBody(),
+                HttpRequest.newBuilder().uri(URI.create(config.getApiUrl())));
+
+        assertThat(request.method(), is("GET"));
     }
 
     @Test(expectedExceptions = HttpTimeoutException.class,
@@ -411,4 +1445,84 @@ public class VisualRegressionTrackerTest {
 
         mockWebServer.takeRequest();
     }
+
+    @Test(expectedExceptions = HttpTimeoutException.class)
+    public void adaptiveTimeoutShouldFollowObservedLatency() throws IOException, InterruptedException {
+        String json = gson.toJson(TestRunResponse.builder().status(TestRunStatus.OK).build());
+        for (int i = 0; i < 5; i++) {
+            mockWebServer.enqueue(new MockResponse().setBody(json));
+        }
+        // within the fixed timeout, but far above the observed latency
+        mockWebServer.enqueue(new MockResponse().setHeadersDelay(HTTP_TIMEOUT * 900, TimeUnit.MILLISECONDS).setBody(json));
+        config.setEnableAdaptiveTimeouts(true);
+        config.setMinWriteTimeoutInMillis(50);
+        config.setMinResponseTimeoutInMillis(100);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        for (int i = 0; i < 5; i++) {
+            vrt.track(NAME, IMAGE_BASE_64);
+        }
+
+        vrt.track(NAME, IMAGE_BASE_64);
+    }
+
+    @Test
+    public void shouldRecordTrackEvent() throws IOException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setBody(gson.toJson(TestRunResponse.builder()
+                .status(TestRunStatus.UNRESOLVED)
+                .diffPercent(1.5f)
+                .url("url")
+                .build())));
+        config.setEnableSoftAssert(true);
+        vrt = new VisualRegressionTracker(config);
+        vrt.session = new TrackerSession(BUILD_ID, PROJECT_ID);
+        Path file = Files.createTempFile("vrt", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("io.visual_regression_tracker.Track");
+            recording.start();
+            vrt.track(NAME, IMAGE_BASE_64);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("io.visual_regression_tracker.Track"))
+                .collect(Collectors.toList());
+        assertThat(events.size(), is(1));
+        assertThat(events.get(0).getString("name"), is(NAME));
+        assertThat(events.get(0).getLong("imageBytes"), is((long) Base64.getDecoder().decode(IMAGE_BASE_64).length));
+        assertThat(events.get(0).getString("status"), is("UNRESOLVED"));
+        assertThat(events.get(0).getFloat("diffPercent"), is(1.5f));
+        assertThat(events.get(0).getDuration("serverTime").isZero(), is(false));
+    }
+
+    /**
+     * @return black 10x10 PNG with the first pixels of the top row white
+     */
+    private static byte[] png(int changedPixels) throws IOException {
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < changedPixels; x++) {
+            image.setRGB(x, 0, 0xFFFFFF);
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+
+    @SneakyThrows
+    private static byte[] gzip(String content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(bytes)) {
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    @SneakyThrows
+    private static String gunzip(byte[] content) {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
 }
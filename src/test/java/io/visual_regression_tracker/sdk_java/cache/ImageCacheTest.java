@@ -0,0 +1,101 @@
+package io.visual_regression_tracker.sdk_java.cache;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ImageCacheTest {
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("vrt-images");
+    }
+
+    @Test
+    public void shouldShareDownloadOfConcurrentRequests() throws Exception {
+        ImageCache cache = new ImageCache(directory, Long.MAX_VALUE);
+        AtomicInteger downloads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> files = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                files.add(executor.submit(() -> cache.get("image.png", (imageName, cached, target) -> {
+                    downloads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return write(target, "image");
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Path> file : files) {
+                assertThat(read(file.get()), is("image"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(downloads.get(), is(1));
+    }
+
+    @Test
+    public void shouldRevalidateImageCachedByEarlierRun() throws IOException, InterruptedException {
+        new ImageCache(directory, Long.MAX_VALUE).get("image.png",
+                (imageName, cached, target) -> write(target, "image"));
+        ImageCache cache = new ImageCache(directory, Long.MAX_VALUE);
+        List<String> etags = new ArrayList<>();
+        ImageCache.Fetcher notModified = (imageName, cached, target) -> {
+            etags.add(cached.getEtag());
+            return null;
+        };
+
+        cache.get("image.png", notModified);
+        Path file = cache.get("image.png", notModified);
+
+        assertThat(read(file), is("image"));
+        assertThat(etags.size(), is(1));
+        assertThat(etags.get(0), is("\"image\""));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedImages() throws IOException, InterruptedException {
+        ImageCache cache = new ImageCache(directory, 12);
+        ImageCache.Fetcher fetcher = (imageName, cached, target) -> write(target, imageName);
+
+        cache.get("first", fetcher);
+        cache.get("second", fetcher);
+        cache.get("first", fetcher);
+        cache.get("third", fetcher);
+
+        assertThat(cache.getUsedBytes(), is(10L));
+        assertThat(Files.exists(directory.resolve("first")), is(true));
+        assertThat(Files.exists(directory.resolve("second")), is(false));
+        assertThat(Files.exists(directory.resolve("third")), is(true));
+    }
+
+    private static ImageCache.Validators write(Path target, String content) throws IOException {
+        Files.write(target, content.getBytes(StandardCharsets.UTF_8));
+        return new ImageCache.Validators("\"" + content + "\"", null);
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
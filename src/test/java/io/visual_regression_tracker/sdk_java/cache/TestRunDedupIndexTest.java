@@ -0,0 +1,102 @@
+package io.visual_regression_tracker.sdk_java.cache;
+
+import io.visual_regression_tracker.sdk_java.TestRunOptions;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestRunDedupIndexTest {
+
+    private Path indexFile;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        indexFile = Files.createTempDirectory("vrt-dedup").resolve("index.json");
+    }
+
+    @Test
+    public void shouldFindSavedEntriesAfterReload() {
+        TestRunDedupIndex index = new TestRunDedupIndex(indexFile, 10, Duration.ofDays(1));
+        index.put("key", "hash");
+        index.save();
+
+        TestRunDedupIndex reloaded = new TestRunDedupIndex(indexFile, 10, Duration.ofDays(1));
+
+        assertThat(reloaded.contains("key", "hash"), is(true));
+        assertThat(reloaded.contains("key", "otherHash"), is(false));
+        assertThat(reloaded.contains("otherKey", "hash"), is(false));
+    }
+
+    @Test
+    public void shouldKeepBaselineNameOfAcceptedImage() {
+        TestRunDedupIndex index = new TestRunDedupIndex(indexFile, 10, Duration.ofDays(1));
+        index.put("key", "hash", "baseline.png");
+        index.contains("key", "hash");
+        index.save();
+
+        TestRunDedupIndex reloaded = new TestRunDedupIndex(indexFile, 10, Duration.ofDays(1));
+
+        assertThat(reloaded.baselineName("key"), is("baseline.png"));
+        assertThat(reloaded.baselineName("otherKey"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntries() {
+        TestRunDedupIndex index = new TestRunDedupIndex(indexFile, 2, Duration.ofDays(1));
+        index.put("first", "hash");
+        index.put("second", "hash");
+        index.contains("first", "hash");
+
+        index.put("third", "hash");
+
+        assertThat(index.size(), is(2));
+        assertThat(index.contains("first", "hash"), is(true));
+        assertThat(index.contains("second", "hash"), is(false));
+        assertThat(index.contains("third", "hash"), is(true));
+    }
+
+    @Test
+    public void shouldDropExpiredEntriesOnLoad() {
+        Instant now = Instant.parse("2024-01-10T00:00:00Z");
+        TestRunDedupIndex index = new TestRunDedupIndex(indexFile, 10, Duration.ofDays(5),
+                Clock.fixed(now.minus(Duration.ofDays(6)), ZoneOffset.UTC));
+        index.put("key", "hash");
+        index.save();
+
+        TestRunDedupIndex reloaded = new TestRunDedupIndex(indexFile, 10, Duration.ofDays(5),
+                Clock.fixed(now, ZoneOffset.UTC));
+
+        assertThat(reloaded.size(), is(0));
+    }
+
+    @Test
+    public void shouldHashDecodedImageContent() {
+        assertThat(TestRunDedupIndex.contentHash(ImageSource.ofBase64("aW1hZ2U=")),
+                is(TestRunDedupIndex.contentHash(ImageSource.ofBytes("image".getBytes()))));
+        assertThat(TestRunDedupIndex.contentHash(ImageSource.ofBase64("aW1hZ2U=")),
+                not(TestRunDedupIndex.contentHash(ImageSource.ofBytes("other".getBytes()))));
+    }
+
+    @Test
+    public void shouldDistinguishTestRunIdentity() {
+        TestRunOptions chrome = TestRunOptions.builder().browser("Chrome").build();
+        TestRunOptions firefox = TestRunOptions.builder().browser("Firefox").build();
+
+        assertThat(TestRunDedupIndex.key("name", chrome, "master"), is(TestRunDedupIndex.key("name", chrome, "master")));
+        assertThat(TestRunDedupIndex.key("name", chrome, "master"), not(TestRunDedupIndex.key("name", firefox, "master")));
+        assertThat(TestRunDedupIndex.key("name", chrome, "master"), not(TestRunDedupIndex.key("name", chrome, "develop")));
+    }
+}
@@ -0,0 +1,89 @@
+package io.visual_regression_tracker.sdk_java.compare;
+
+import io.visual_regression_tracker.sdk_java.IgnoreAreas;
+import io.visual_regression_tracker.sdk_java.TestRunStatus;
+import org.testng.annotations.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PixelComparatorTest {
+
+    @Test
+    public void shouldCountDifferentPixels() {
+        ComparisonResult result = PixelComparator.compare(image(0), image(25), null, null);
+
+        assertThat(result.getDiffPixels(), is(25L));
+        assertThat(result.getTotalPixels(), is(10000L));
+        assertThat(result.getDiffPercent(), is(0.25f));
+        assertThat(result.getStatus(), is(TestRunStatus.UNRESOLVED));
+    }
+
+    @Test
+    public void shouldAcceptDifferenceWithinTolerance() {
+        ComparisonResult result = PixelComparator.compare(image(0), image(25), null, 0.25f);
+
+        assertThat(result.getStatus(), is(TestRunStatus.OK));
+    }
+
+    @Test
+    public void shouldNotCountPixelsInIgnoreAreas() {
+        List<IgnoreAreas> ignoreAreas = Collections.singletonList(IgnoreAreas.builder()
+                .x(10L).y(0L).width(100L).height(1L).build());
+
+        ComparisonResult result = PixelComparator.compare(image(0), image(25), ignoreAreas, null);
+
+        assertThat(result.getDiffPixels(), is(10L));
+    }
+
+    @Test
+    public void shouldNotResolveImagesOfDifferentSize() {
+        ComparisonResult result = PixelComparator.compare(image(0), new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB),
+                null, 100f);
+
+        assertThat(result.getStatus(), is(TestRunStatus.UNRESOLVED));
+    }
+
+    @Test
+    public void shouldNotCountColorDifferenceWithinThreshold() {
+        BufferedImage image = image(0);
+        image.setRGB(50, 50, 0x050505);
+
+        assertThat(PixelComparator.compare(image(0), image, null, null).getDiffPixels(), is(0L));
+        assertThat(PixelComparator.compare(image(0), image, null, null, 0f).getDiffPixels(), is(1L));
+    }
+
+    @Test
+    public void shouldNotCountAntialiasedPixels() {
+        BufferedImage baseline = image(0);
+        BufferedImage image = image(0);
+        for (int y = 0; y < 100; y++) {
+            for (int x = 50; x < 100; x++) {
+                baseline.setRGB(x, y, 0xFFFFFF);
+                image.setRGB(x, y, 0xFFFFFF);
+            }
+        }
+        // smoothed edge between the black and the white half
+        image.setRGB(49, 50, 0x808080);
+
+        ComparisonResult result = PixelComparator.compare(baseline, image, null, null);
+
+        assertThat(result.getDiffPixels(), is(0L));
+        assertThat(result.getStatus(), is(TestRunStatus.OK));
+    }
+
+    /**
+     * @return black 100x100 image with the first pixels of the top row white
+     */
+    private static BufferedImage image(int changedPixels) {
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < changedPixels; x++) {
+            image.setRGB(x, 0, 0xFFFFFF);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,65 @@
+package io.visual_regression_tracker.sdk_java.concurrent;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ExecutorFactoryTest {
+
+    @Test
+    public void platformModeShouldUseNamedPlatformThreads() throws Exception {
+        ExecutorService executor = ExecutorFactory.newExecutor(ThreadMode.PLATFORM, "test", 2);
+        try {
+            String threadName = executor.submit(() -> Thread.currentThread().getName()).get();
+
+            assertThat(threadName, startsWith("test-"));
+            assertThat(ExecutorFactory.usesVirtualThreads(ThreadMode.PLATFORM), is(false));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void autoModeShouldFollowRuntimeSupport() throws Exception {
+        ExecutorService executor = ExecutorFactory.newExecutor(ThreadMode.AUTO, "test", 2);
+        try {
+            boolean daemon = executor.submit(() -> Thread.currentThread().isDaemon()).get();
+
+            assertThat(daemon, is(true));
+            assertThat(ExecutorFactory.usesVirtualThreads(ThreadMode.AUTO), is(ExecutorFactory.isVirtualThreadSupported()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void virtualModeShouldUseNamedVirtualThreads() throws Exception {
+        if (!ExecutorFactory.isVirtualThreadSupported()) {
+            throw new SkipException("Runtime does not support virtual threads");
+        }
+        ExecutorService executor = ExecutorFactory.newExecutor(ThreadMode.VIRTUAL, "test", 2);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get();
+
+            assertThat(thread.getName(), startsWith("test-"));
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread), is(true));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class,
+            expectedExceptionsMessageRegExp = "Virtual threads require Java 21 or newer.*")
+    public void virtualModeShouldFailWithoutRuntimeSupport() {
+        if (ExecutorFactory.isVirtualThreadSupported()) {
+            throw new SkipException("Runtime supports virtual threads");
+        }
+
+        ExecutorFactory.newExecutor(ThreadMode.VIRTUAL, "test", 2);
+    }
+}
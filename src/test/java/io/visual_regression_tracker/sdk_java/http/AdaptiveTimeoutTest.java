@@ -0,0 +1,47 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AdaptiveTimeoutTest {
+
+    private static final Duration FALLBACK = Duration.ofSeconds(10);
+    private static final Duration MIN_WRITE = Duration.ofMillis(100);
+    private static final Duration MIN_RESPONSE = Duration.ofMillis(200);
+
+    @Test
+    public void shouldUseFallbackUntilEstimated() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(FALLBACK, MIN_WRITE, MIN_RESPONSE);
+        timeout.record(100, Duration.ofMillis(50));
+
+        assertThat(timeout.timeout(100), is(MIN_WRITE.plus(MIN_RESPONSE)));
+        assertThat(timeout.timeout(1_000_000), is(FALLBACK));
+        assertThat(timeout.timeout(-1), is(FALLBACK));
+    }
+
+    @Test
+    public void shouldScaleWithLatencyAndSize() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(FALLBACK, MIN_WRITE, MIN_RESPONSE);
+        timeout.record(100, Duration.ofMillis(100));
+        // 1 ms per 10 KB on top of the latency
+        timeout.record(1_000_000, Duration.ofMillis(200));
+
+        assertThat(timeout.timeout(100), is(MIN_WRITE.plus(Duration.ofMillis(400))));
+        assertThat(timeout.timeout(10_000_000), is(Duration.ofMillis(4000 + 400)));
+    }
+
+    @Test
+    public void shouldGrowWithSlowerServer() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(FALLBACK, MIN_WRITE, MIN_RESPONSE);
+        timeout.record(100, Duration.ofMillis(100));
+        Duration before = timeout.timeout(100);
+
+        timeout.record(100, Duration.ofMillis(600));
+
+        assertThat(timeout.timeout(100).compareTo(before) > 0, is(true));
+    }
+}
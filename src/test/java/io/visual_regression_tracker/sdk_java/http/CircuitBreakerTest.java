@@ -0,0 +1,114 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import io.visual_regression_tracker.sdk_java.TestRunException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CircuitBreakerTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    public void shouldOpenAfterConsecutiveFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofSeconds(10), clock);
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.isOpen(), is(false));
+
+        circuitBreaker.onFailure();
+        assertThat(circuitBreaker.isOpen(), is(true));
+    }
+
+    @Test(expectedExceptions = TestRunException.class,
+            expectedExceptionsMessageRegExp = "Circuit breaker is open after 1 consecutive failures.*")
+    public void shouldRejectRequestsWhileOpen() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofSeconds(10), clock);
+        circuitBreaker.onFailure();
+
+        circuitBreaker.beforeRequest();
+    }
+
+    @Test
+    public void shouldLetSingleProbeThroughAfterOpenDuration() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofSeconds(10), clock);
+        circuitBreaker.onFailure();
+        clock.advance(Duration.ofSeconds(11));
+
+        circuitBreaker.beforeRequest();
+        boolean secondRejected = false;
+        try {
+            circuitBreaker.beforeRequest();
+        } catch (TestRunException e) {
+            secondRejected = true;
+        }
+        circuitBreaker.onSuccess();
+
+        assertThat(secondRejected, is(true));
+        assertThat(circuitBreaker.isOpen(), is(false));
+    }
+
+    @Test
+    public void shouldLetNextProbeThroughAfterInterruptedProbe() throws IOException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofSeconds(10), clock);
+        circuitBreaker.onFailure();
+        clock.advance(Duration.ofSeconds(11));
+        RetryPolicy policy = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, true);
+
+        boolean interrupted = false;
+        try {
+            new Retrier(circuitBreaker).execute(policy, () -> {
+                throw new InterruptedException();
+            });
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        circuitBreaker.beforeRequest();
+
+        assertThat(interrupted, is(true));
+        assertThat(circuitBreaker.isOpen(), is(true));
+    }
+
+    @Test
+    public void shouldNeverOpenIfDisabled() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(0, Duration.ofSeconds(10), clock);
+        for (int i = 0; i < 100; i++) {
+            circuitBreaker.onFailure();
+        }
+
+        circuitBreaker.beforeRequest();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import org.testng.annotations.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConcurrencyLimiterTest {
+
+    private static final Duration LATENCY = Duration.ofMillis(100);
+    private static final long REQUEST_BYTES = 1024;
+
+    @Test
+    public void shouldGrowByOnePerWindowOfSuccesses() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(true, 4, 1, 10, Clock.systemUTC());
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.onSuccess(REQUEST_BYTES, LATENCY);
+        }
+
+        assertThat(limiter.getLimit(), is(5));
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    public void shouldHalveOnDropAndKeepMinimum() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(true, 8, 1, 10, Clock.systemUTC());
+
+        limiter.acquire();
+        limiter.onDrop(Optional.empty());
+        assertThat(limiter.getLimit(), is(4));
+
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.onDrop(Optional.empty());
+        }
+        assertThat(limiter.getLimit(), is(1));
+    }
+
+    @Test
+    public void shouldShrinkWhenLatencyGrows() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(true, 10, 1, 10, Clock.systemUTC());
+        limiter.acquire();
+        limiter.onSuccess(REQUEST_BYTES, LATENCY);
+
+        limiter.acquire();
+        limiter.onSuccess(REQUEST_BYTES, LATENCY.multipliedBy(5));
+
+        assertThat(limiter.getLimit(), is(9));
+    }
+
+    @Test
+    public void shouldCompareLatencyWithRequestsOfSimilarSize() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(true, 10, 1, 10, Clock.systemUTC());
+        limiter.acquire();
+        limiter.onSuccess(REQUEST_BYTES, LATENCY);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.onSuccess(4 * 1024 * 1024, LATENCY.multipliedBy(20));
+        }
+
+        assertThat(limiter.getLimit(), is(10));
+    }
+
+    @Test
+    public void shouldNotGrowBeyondMaximum() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(true, 2, 1, 2, Clock.systemUTC());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.onSuccess(REQUEST_BYTES, LATENCY);
+        }
+
+        assertThat(limiter.getLimit(), is(2));
+    }
+
+    @Test
+    public void fixedLimiterShouldNeverChange() throws InterruptedException {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.fixed(3);
+
+        limiter.acquire();
+        limiter.onDrop(Optional.of(Duration.ofSeconds(10)));
+        limiter.acquire();
+        limiter.onSuccess(REQUEST_BYTES, LATENCY);
+
+        assertThat(limiter.getLimit(), is(3));
+        assertThat(limiter.acquireAsync().isDone(), is(true));
+    }
+
+    @Test
+    public void shouldAdmitWaitingRequestWhenSlotIsReleased() throws InterruptedException {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.adaptive(1, 1);
+        limiter.acquire();
+
+        CompletableFuture<Void> waiting = limiter.acquireAsync();
+        assertThat(waiting.isDone(), is(false));
+
+        limiter.onSuccess(REQUEST_BYTES, LATENCY);
+        assertThat(waiting.isDone(), is(true));
+        assertThat(limiter.getInFlight(), is(1));
+    }
+
+    @Test
+    public void shouldHoldBackRequestsForRetryAfter() throws Exception {
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.adaptive(4, 4);
+        limiter.acquire();
+        limiter.onDrop(Optional.of(Duration.ofMillis(300)));
+
+        CompletableFuture<Void> waiting = limiter.acquireAsync();
+        assertThat(waiting.isDone(), is(false));
+
+        waiting.get(5, TimeUnit.SECONDS);
+        assertThat(limiter.getInFlight(), is(1));
+    }
+}
@@ -0,0 +1,63 @@
+package io.visual_regression_tracker.sdk_java.http;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RequestBodyTest {
+
+    @Test
+    public void gzipShouldRoundTrip() throws IOException {
+        StringBuilder json = new StringBuilder("{\"name\":\"");
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            json.append((char) ('a' + random.nextInt(4)));
+        }
+        RequestBody body = RequestBody.ofJson(json.append("\"}").toString());
+
+        RequestBody compressed = body.gzip(Deflater.BEST_SPEED);
+
+        assertThat(compressed.getContentLength(), is(-1L));
+        assertThat(compressed.getExpectedLength(), is(body.getContentLength()));
+        assertThat(compressed.getContentEncoding(), is(RequestBody.GZIP_ENCODING));
+        assertThat(compressed.getContentType(), is(RequestBody.JSON_CONTENT_TYPE));
+        for (int attempt = 0; attempt < 2; attempt++) {
+            byte[] wire = readAll(compressed.openStream());
+            assertThat(readAll(new GZIPInputStream(new ByteArrayInputStream(wire))), is(readAll(body.openStream())));
+            assertThat(compressed.getTransferredLength(), is((long) wire.length));
+            assertThat(wire.length < body.getContentLength(), is(true));
+        }
+    }
+
+    @Test
+    public void gzipShouldRoundTripEmptyBody() throws IOException {
+        RequestBody compressed = RequestBody.ofJson("").gzip(Deflater.BEST_SPEED);
+
+        byte[] wire = readAll(compressed.openStream());
+
+        assertThat(readAll(new GZIPInputStream(new ByteArrayInputStream(wire))).length, is(0));
+    }
+
+    @Test
+    public void uncompressedBodyShouldReportContentLength() {
+        RequestBody body = RequestBody.ofJson("{}");
+
+        assertThat(body.getContentEncoding(), is(nullValue()));
+        assertThat(body.getTransferredLength(), is(2L));
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        try (InputStream input = stream) {
+            return input.readAllBytes();
+        }
+    }
+}
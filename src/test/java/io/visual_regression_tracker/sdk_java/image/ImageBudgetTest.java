@@ -0,0 +1,65 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import io.visual_regression_tracker.sdk_java.TestRunException;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ImageBudgetTest {
+
+    @Test
+    public void shouldWaitUntilCapacityIsReleased() throws InterruptedException {
+        ImageBudget budget = new ImageBudget(100, false);
+        budget.acquire(60);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                budget.acquire(60);
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        assertThat(acquired.await(100, TimeUnit.MILLISECONDS), is(false));
+        budget.release(60);
+
+        assertThat(acquired.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(budget.getUsedBytes(), is(60L));
+        assertThat(budget.getPeakBytes(), is(60L));
+    }
+
+    @Test(expectedExceptions = TestRunException.class)
+    public void shouldRejectImageAboveBudget() throws InterruptedException {
+        ImageBudget budget = new ImageBudget(100, true);
+        budget.acquire(60);
+
+        budget.acquire(60);
+    }
+
+    @Test
+    public void shouldAdmitOversizedImageWhileNothingElseIsHeld() throws InterruptedException {
+        ImageBudget budget = new ImageBudget(100, true);
+
+        budget.acquire(500);
+
+        assertThat(budget.getUsedBytes(), is(500L));
+    }
+
+    @Test
+    public void shouldOnlyCountWithoutBudget() throws InterruptedException {
+        ImageBudget budget = new ImageBudget(0, true);
+
+        budget.acquire(500);
+        budget.acquire(500);
+        budget.release(500);
+
+        assertThat(budget.getUsedBytes(), is(500L));
+        assertThat(budget.getPeakBytes(), is(1000L));
+    }
+}
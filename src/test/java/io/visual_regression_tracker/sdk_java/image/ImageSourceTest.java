@@ -0,0 +1,59 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ImageSourceTest {
+
+    @Test
+    public void smallFileShouldBeReadRightAway() throws IOException {
+        byte[] content = randomBytes(1000);
+        Path file = Files.createTempFile("vrt-image", ".png");
+        Files.write(file, content);
+
+        ImageSource image = ImageSource.ofPath(file);
+        Files.delete(file);
+
+        assertThat(image.length(), is(1000L));
+        assertThat(readAll(image.openBase64Stream()), is(Base64.getEncoder().encodeToString(content)));
+    }
+
+    @Test
+    public void largeFileShouldBeStreamedAndReleased() throws IOException {
+        byte[] content = randomBytes(ImageSource.IN_MEMORY_MAX_BYTES + 1);
+        Path file = Files.createTempFile("vrt-image", ".png");
+        Files.write(file, content);
+
+        ImageSource image = ImageSource.ofPath(file);
+        String base64 = readAll(image.openBase64Stream());
+        String secondBase64 = readAll(image.openBase64Stream());
+        Files.delete(file);
+
+        assertThat(image.length(), is((long) content.length));
+        assertThat(image.base64Length(), is((long) base64.length()));
+        assertThat(base64, is(Base64.getEncoder().encodeToString(content)));
+        assertThat(secondBase64, is(base64));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String readAll(InputStream stream) throws IOException {
+        try (InputStream inputStream = stream) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+    }
+}
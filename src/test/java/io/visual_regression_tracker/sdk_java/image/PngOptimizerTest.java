@@ -0,0 +1,94 @@
+package io.visual_regression_tracker.sdk_java.image;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PngOptimizerTest {
+
+    @DataProvider(name = "imageTypes")
+    public Object[][] imageTypes() {
+        return new Object[][]{
+                {BufferedImage.TYPE_INT_ARGB},
+                {BufferedImage.TYPE_INT_RGB},
+                {BufferedImage.TYPE_BYTE_GRAY},
+                {BufferedImage.TYPE_USHORT_GRAY},
+                {BufferedImage.TYPE_BYTE_INDEXED},
+                {BufferedImage.TYPE_BYTE_BINARY},
+        };
+    }
+
+    @Test
+    public void shouldShrinkScreenshotWithoutChangingPixels() throws IOException {
+        byte[] original = Files.readAllBytes(Paths.get("src/test/resources/home_page.png"));
+
+        byte[] optimized = readAll(PngOptimizer.optimize(ImageSource.ofBytes(original)));
+
+        assertThat(optimized.length < original.length, is(true));
+        assertSamePixels(original, optimized);
+    }
+
+    @Test(dataProvider = "imageTypes")
+    public void shouldKeepPixelsOfEveryImageType(int imageType) throws IOException {
+        BufferedImage image = new BufferedImage(97, 61, imageType);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, (x * 7 + y * 3) << 24 | (x * 5) << 16 | (y * 9) << 8 | (x ^ y));
+            }
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        byte[] reencoded = PngOptimizer.reencode(png.toByteArray());
+
+        assertSamePixels(png.toByteArray(), reencoded);
+    }
+
+    @Test
+    public void shouldReturnOtherFormatsUnchanged() {
+        ImageSource image = ImageSource.ofBytes("not a png".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(PngOptimizer.optimize(image), is(sameInstance(image)));
+    }
+
+    @Test
+    public void shouldReturnCorruptImageUnchanged() throws IOException {
+        byte[] original = Files.readAllBytes(Paths.get("src/test/resources/home_page.png"));
+        byte[] truncated = new byte[original.length / 2];
+        System.arraycopy(original, 0, truncated, 0, truncated.length);
+        ImageSource image = ImageSource.ofBytes(truncated);
+
+        assertThat(PngOptimizer.optimize(image), is(sameInstance(image)));
+    }
+
+    private static byte[] readAll(ImageSource image) throws IOException {
+        try (InputStream inputStream = image.openStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static void assertSamePixels(byte[] expected, byte[] actual) throws IOException {
+        BufferedImage expectedImage = ImageIO.read(new ByteArrayInputStream(expected));
+        BufferedImage actualImage = ImageIO.read(new ByteArrayInputStream(actual));
+        assertThat(actualImage.getWidth(), is(expectedImage.getWidth()));
+        assertThat(actualImage.getHeight(), is(expectedImage.getHeight()));
+        for (int x = 0; x < expectedImage.getWidth(); x++) {
+            for (int y = 0; y < expectedImage.getHeight(); y++) {
+                assertThat(actualImage.getRGB(x, y), is(expectedImage.getRGB(x, y)));
+            }
+        }
+    }
+}
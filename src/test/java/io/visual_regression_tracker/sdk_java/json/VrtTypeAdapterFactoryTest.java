@@ -0,0 +1,93 @@
+package io.visual_regression_tracker.sdk_java.json;
+
+import com.google.gson.Gson;
+import io.visual_regression_tracker.sdk_java.IgnoreAreas;
+import io.visual_regression_tracker.sdk_java.TestRunStatus;
+import io.visual_regression_tracker.sdk_java.request.BuildRequest;
+import io.visual_regression_tracker.sdk_java.request.TestRunRequest;
+import io.visual_regression_tracker.sdk_java.response.BuildResponse;
+import io.visual_regression_tracker.sdk_java.response.TestRunResponse;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class VrtTypeAdapterFactoryTest {
+
+    private final Gson reflectiveGson = new Gson();
+    private final Gson gson = VrtTypeAdapterFactory.createGson();
+
+    @DataProvider(name = "dtos")
+    public Object[][] dtos() {
+        return new Object[][]{
+                {TestRunRequest.builder()
+                        .projectId("projectId")
+                        .buildId("buildId")
+                        .name("Home <page> & 'more'")
+                        .imageBase64("aGk=")
+                        .os("OS")
+                        .browser("Browser")
+                        .viewport("1920x1080")
+                        .device("Device")
+                        .customTags("tag")
+                        .diffTollerancePercent(0.1f)
+                        .branchName("develop")
+                        .ignoreAreas(Arrays.asList(
+                                IgnoreAreas.builder().x(1L).y(2L).width(3L).height(4L).build(),
+                                IgnoreAreas.builder().x(5L).build()))
+                        .build()},
+                {TestRunRequest.builder().name("name").diffTollerancePercent(1e-7f).ignoreAreas(Collections.emptyList()).build()},
+                {BuildRequest.builder().project("project").ciBuildId("ciBuildId").build()},
+                {BuildResponse.builder().id("id").projectId("projectId").number(3).passedCount(1).merge(true).isRunning(true).build()},
+                {TestRunResponse.builder()
+                        .id("id")
+                        .name("name")
+                        .imageName("image.png")
+                        .diffPercent(0.32f)
+                        .pixelMisMatchCount(5)
+                        .merge(false)
+                        .url("http://localhost:8080?buildId=1&testId=2")
+                        .status(TestRunStatus.AUTO_APPROVED)
+                        .build()},
+                {TestRunResponse.builder().build()},
+        };
+    }
+
+    @Test(dataProvider = "dtos")
+    public void shouldWriteSameJsonAsReflectiveGson(Object dto) {
+        assertThat(gson.toJson(dto), is(reflectiveGson.toJson(dto)));
+    }
+
+    @Test(dataProvider = "dtos")
+    public void shouldReadJsonWrittenByReflectiveGson(Object dto) {
+        String json = reflectiveGson.toJson(dto);
+
+        Object read = gson.fromJson(json, dto.getClass());
+
+        assertThat(reflectiveGson.toJson(read), is(json));
+    }
+
+    @Test
+    public void shouldSkipUnknownFieldsAndAcceptLenientValues() {
+        String json = "{\"id\":\"1\",\"number\":\"7\",\"merge\":\"true\",\"isRunning\":null,\"extra\":{\"a\":[1,2]}}";
+
+        BuildResponse buildResponse = gson.fromJson(json, BuildResponse.class);
+
+        assertThat(buildResponse.getId(), is("1"));
+        assertThat(buildResponse.getNumber(), is(7));
+        assertThat(buildResponse.isMerge(), is(true));
+        assertThat(buildResponse.isRunning(), is(false));
+    }
+
+    @Test
+    public void shouldReadUnknownStatusAsNull() {
+        TestRunResponse testRunResponse = gson.fromJson("{\"status\":\"archived\"}", TestRunResponse.class);
+
+        assertThat(testRunResponse.getStatus(), is(nullValue()));
+    }
+}
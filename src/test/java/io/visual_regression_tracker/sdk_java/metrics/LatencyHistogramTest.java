@@ -0,0 +1,36 @@
+package io.visual_regression_tracker.sdk_java.metrics;
+
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldReportPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(Duration.ofMillis(millis));
+        }
+
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getMax(), is(Duration.ofMillis(1000)));
+        assertThat(isBetween(histogram.getPercentile(50), 500, 550), is(true));
+        assertThat(isBetween(histogram.getPercentile(95), 950, 1000), is(true));
+        assertThat(isBetween(histogram.getPercentile(99), 990, 1000), is(true));
+    }
+
+    @Test
+    public void shouldReportZeroWhenEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getPercentile(99), is(Duration.ZERO));
+    }
+
+    private static boolean isBetween(Duration duration, long minMillis, long maxMillis) {
+        return duration.toMillis() >= minMillis && duration.toMillis() <= maxMillis;
+    }
+}
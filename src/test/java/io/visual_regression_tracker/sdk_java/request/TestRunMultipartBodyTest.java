@@ -0,0 +1,52 @@
+package io.visual_regression_tracker.sdk_java.request;
+
+import com.google.gson.Gson;
+import io.visual_regression_tracker.sdk_java.http.RequestBody;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestRunMultipartBodyTest {
+
+    private final Gson gson = new Gson();
+
+    @Test
+    public void shouldWriteQuotesInValuesAsTheyAre() throws IOException {
+        TestRunRequest request = TestRunRequest.builder().name("Test \"name\"").customTags("a,\"b\"").build();
+
+        RequestBody body = TestRunMultipartBody.create(gson, request, ImageSource.ofBase64("aW1hZ2U="));
+
+        String content = read(body);
+        assertThat(TestRunMultipartBody.supports(request), is(true));
+        assertThat(content, containsString("name=\"name\"\r\n\r\nTest \"name\"\r\n"));
+        assertThat(content, containsString("name=\"customTags\"\r\n\r\na,\"b\"\r\n"));
+        assertThat(body.getContentLength(), is((long) content.getBytes(StandardCharsets.UTF_8).length));
+    }
+
+    @Test
+    public void shouldNotSupportLineBreaksInValues() {
+        assertThat(TestRunMultipartBody.supports(TestRunRequest.builder().name("Test\r\n\"name\"").build()), is(false));
+        assertThat(TestRunMultipartBody.supports(TestRunRequest.builder().name("Test").branchName("a\nb").build()), is(false));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+            expectedExceptionsMessageRegExp = "Test run <.*> has a field with a line break.*")
+    public void shouldRejectLineBreaksInValues() {
+        TestRunRequest request = TestRunRequest.builder().name("Test\r\n--\"name\"").build();
+
+        TestRunMultipartBody.create(gson, request, ImageSource.ofBase64("aW1hZ2U="));
+    }
+
+    private String read(RequestBody body) throws IOException {
+        try (InputStream inputStream = body.openStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.visual_regression_tracker.sdk_java.request;
+
+import com.google.gson.Gson;
+import io.visual_regression_tracker.sdk_java.IgnoreAreas;
+import io.visual_regression_tracker.sdk_java.http.RequestBody;
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestRunRequestBodyTest {
+
+    private final Gson gson = new Gson();
+
+    @DataProvider(name = "imageSizes")
+    public Object[][] imageSizes() {
+        return new Object[][]{{0}, {1}, {2}, {3}, {49_151}, {49_152}, {1_000_000}};
+    }
+
+    @Test(dataProvider = "imageSizes")
+    public void shouldStreamSameJsonAsGson(int imageSize) throws IOException {
+        byte[] image = new byte[imageSize];
+        new Random(imageSize).nextBytes(image);
+        String imageBase64 = Base64.getEncoder().encodeToString(image);
+
+        RequestBody fromBytes = TestRunRequestBody.create(gson, requestBuilder(), ImageSource.ofBytes(image));
+        RequestBody fromBase64 = TestRunRequestBody.create(gson, requestBuilder(), ImageSource.ofBase64(imageBase64));
+
+        String expected = new Gson().newBuilder().disableHtmlEscaping().create()
+                .toJson(requestBuilder().imageBase64(imageBase64).build());
+        assertThat(read(fromBytes), is(expected));
+        assertThat(read(fromBase64), is(expected));
+        assertThat(fromBytes.getContentLength(), is((long) expected.length()));
+        assertThat(fromBase64.getContentLength(), is((long) expected.length()));
+    }
+
+    @Test
+    public void shouldBeReadableMoreThanOnce() throws IOException {
+        RequestBody body = TestRunRequestBody.create(gson, requestBuilder(), ImageSource.ofBase64("aW1hZ2U="));
+
+        assertThat(read(body), is(read(body)));
+    }
+
+    @Test
+    public void shouldStreamImageIntoImageFieldWhateverTheName() throws IOException {
+        RequestBody body = TestRunRequestBody.create(gson, requestBuilder().name("vrt-image-placeholder"),
+                ImageSource.ofBase64("aW1hZ2U="));
+
+        TestRunRequest request = gson.fromJson(read(body), TestRunRequest.class);
+        assertThat(request.getName(), is("vrt-image-placeholder"));
+        assertThat(request.getImageBase64(), is("aW1hZ2U="));
+    }
+
+    private TestRunRequest.TestRunRequestBuilder requestBuilder() {
+        return TestRunRequest.builder()
+                .projectId("projectId")
+                .buildId("buildId")
+                .name("name")
+                .browser("Chrome")
+                .diffTollerancePercent(0.1f)
+                .ignoreAreas(Collections.singletonList(IgnoreAreas.builder().x(1L).y(2L).width(3L).height(4L).build()));
+    }
+
+    private String read(RequestBody body) throws IOException {
+        try (InputStream inputStream = body.openStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.visual_regression_tracker.sdk_java.session;
+
+import io.visual_regression_tracker.sdk_java.response.BuildResponse;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SharedBuildFileTest {
+
+    private static final String CI_BUILD_ID = "ci";
+
+    private Path file;
+    private AtomicInteger startedBuilds;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        file = Files.createTempDirectory("vrt-shared").resolve("build.json");
+        startedBuilds = new AtomicInteger();
+    }
+
+    @Test
+    public void shouldStartBuildOnceForConcurrentShards() throws Exception {
+        int shards = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(shards);
+        List<Future<BuildResponse>> builds = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shards; shard++) {
+                builds.add(executor.submit(() -> new SharedBuildFile(file, shards).attach(CI_BUILD_ID, this::startBuild)));
+            }
+            for (Future<BuildResponse> build : builds) {
+                assertThat(build.get(10, TimeUnit.SECONDS).getId(), is("build1"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(startedBuilds.get(), is(1));
+    }
+
+    @Test
+    public void onlyLastShardShouldStopBuild() throws IOException, InterruptedException {
+        SharedBuildFile first = new SharedBuildFile(file, 3);
+        SharedBuildFile second = new SharedBuildFile(file, 3);
+        SharedBuildFile third = new SharedBuildFile(file, 3);
+        first.attach(CI_BUILD_ID, this::startBuild);
+        second.attach(CI_BUILD_ID, this::startBuild);
+
+        assertThat(first.finish("build1"), is(false));
+        third.attach(CI_BUILD_ID, this::startBuild);
+        assertThat(second.finish("build1"), is(false));
+        assertThat(third.finish("build1"), is(true));
+        assertThat(startedBuilds.get(), is(1));
+    }
+
+    @Test
+    public void extraShardShouldKeepBuildRunningUntilItFinishes() throws IOException, InterruptedException {
+        SharedBuildFile first = new SharedBuildFile(file, 2);
+        SharedBuildFile second = new SharedBuildFile(file, 2);
+        SharedBuildFile retried = new SharedBuildFile(file, 2);
+        first.attach(CI_BUILD_ID, this::startBuild);
+        second.attach(CI_BUILD_ID, this::startBuild);
+        BuildResponse build = retried.attach(CI_BUILD_ID, this::startBuild);
+
+        assertThat(build.getId(), is("build1"));
+        assertThat(first.finish("build1"), is(false));
+        assertThat(second.finish("build1"), is(false));
+        assertThat(retried.finish("build1"), is(true));
+    }
+
+    @Test
+    public void shouldStartNewBuildOnceAllShardsFinished() throws IOException, InterruptedException {
+        SharedBuildFile sharedBuild = new SharedBuildFile(file, 1);
+        sharedBuild.attach(CI_BUILD_ID, this::startBuild);
+        sharedBuild.finish("build1");
+
+        BuildResponse build = sharedBuild.attach(CI_BUILD_ID, this::startBuild);
+
+        assertThat(build.getId(), is("build2"));
+    }
+
+    @Test
+    public void shouldNeverAttachWithoutCiBuildId() throws IOException, InterruptedException {
+        new SharedBuildFile(file, 2).attach(null, this::startBuild);
+
+        BuildResponse build = new SharedBuildFile(file, 2).attach(null, this::startBuild);
+
+        assertThat(build.getId(), is("build2"));
+    }
+
+    @Test
+    public void shouldStartNewBuildForOtherCiBuildId() throws IOException, InterruptedException {
+        new SharedBuildFile(file, 2).attach(CI_BUILD_ID, this::startBuild);
+
+        BuildResponse build = new SharedBuildFile(file, 2).attach("otherCi", this::startBuild);
+
+        assertThat(build.getId(), is("build2"));
+    }
+
+    @Test
+    public void shouldStartNewBuildIfFileIsCorrupt() throws IOException, InterruptedException {
+        Files.write(file, "{not json".getBytes(StandardCharsets.UTF_8));
+
+        BuildResponse build = new SharedBuildFile(file, 2).attach(CI_BUILD_ID, this::startBuild);
+
+        assertThat(build.getId(), is("build1"));
+    }
+
+    private BuildResponse startBuild() {
+        return BuildResponse.builder()
+                .id("build" + startedBuilds.incrementAndGet())
+                .projectId("projectId")
+                .build();
+    }
+}
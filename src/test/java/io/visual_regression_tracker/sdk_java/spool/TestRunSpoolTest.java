@@ -0,0 +1,111 @@
+package io.visual_regression_tracker.sdk_java.spool;
+
+import io.visual_regression_tracker.sdk_java.image.ImageSource;
+import io.visual_regression_tracker.sdk_java.request.TestRunRequest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TestRunSpoolTest {
+
+    // small enough to put every test run in a segment of its own
+    private static final long SEGMENT_SIZE = 100;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("vrt-spool");
+    }
+
+    @Test
+    public void shouldTakeTestRunsInOrder() throws IOException, InterruptedException {
+        TestRunSpool spool = new TestRunSpool(directory, SEGMENT_SIZE);
+        append(spool, 3);
+
+        for (int i = 0; i < 3; i++) {
+            TestRunSpool.Record record = spool.take();
+            assertThat(record.getRun().getRequest().getName(), is("name" + i));
+            assertThat(record.getRun().getDedupKey(), is("key" + i));
+            assertThat(read(record.getImage()), is("image" + i));
+            spool.acknowledge(record);
+        }
+
+        assertThat(spool.size(), is(0));
+        assertThat(spool.awaitEmpty(0), is(true));
+        spool.close();
+        assertThat(spool.take(), is(nullValue()));
+        assertThat(TestRunSpool.segments(directory).size(), is(0));
+    }
+
+    @Test
+    public void shouldDeleteSegmentsOnceAcknowledged() throws IOException, InterruptedException {
+        TestRunSpool spool = new TestRunSpool(directory, SEGMENT_SIZE);
+        append(spool, 3);
+        assertThat(TestRunSpool.segments(directory).size(), is(3));
+
+        spool.acknowledge(spool.take());
+
+        assertThat(TestRunSpool.segments(directory).size(), is(2));
+    }
+
+    @Test
+    public void replayShouldResumeAfterAcknowledgedTestRuns() throws IOException, InterruptedException {
+        TestRunSpool spool = new TestRunSpool(directory, Long.MAX_VALUE);
+        append(spool, 3);
+        spool.acknowledge(spool.take());
+
+        assertThat(replayedNames(), is(Arrays.asList("name1", "name2")));
+        assertThat(TestRunSpool.segments(directory).size(), is(0));
+    }
+
+    @Test
+    public void replayShouldSkipTornAndCorruptTestRuns() throws IOException, InterruptedException {
+        TestRunSpool spool = new TestRunSpool(directory, SEGMENT_SIZE);
+        append(spool, 3);
+        List<Path> segments = TestRunSpool.segments(directory);
+        byte[] corrupt = Files.readAllBytes(segments.get(1));
+        corrupt[corrupt.length - 1] ^= 1;
+        Files.write(segments.get(1), corrupt);
+        try (FileChannel channel = FileChannel.open(segments.get(2), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        assertThat(replayedNames(), is(Arrays.asList("name0")));
+        assertThat(TestRunSpool.segments(directory).size(), is(0));
+    }
+
+    private static void append(TestRunSpool spool, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            TestRunRequest request = TestRunRequest.builder().name("name" + i).buildId("buildId").build();
+            spool.append(new SpooledTestRun(request, "key" + i, "hash" + i),
+                    ImageSource.ofBytes(("image" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    private List<String> replayedNames() throws IOException, InterruptedException {
+        List<String> names = new ArrayList<>();
+        TestRunSpool.replay(directory, record -> names.add(record.getRun().getRequest().getName()));
+        return names;
+    }
+
+    private static String read(ImageSource image) throws IOException {
+        try (InputStream inputStream = image.openStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}